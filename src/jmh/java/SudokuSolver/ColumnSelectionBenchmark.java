@@ -0,0 +1,48 @@
+package SudokuSolver;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the column selection heuristics of {@link SudokuDLX} on the instance sets in
+ * src/test/data/sudoku_instances. One operation builds the dancing links of one grid and solves it,
+ * the grids of the selected set and size are solved round robin.
+ *
+ *     mvn -Pbenchmark test-compile exec:exec -Dexec.args="-classpath %classpath org.openjdk.jmh.Main ColumnSelectionBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnSelectionBenchmark {
+
+    @Param({"LINEAR_SCAN", "SIZE_BUCKETS"})
+    public SudokuDLX.ColumnSelection selection;
+
+    @Param({"pruning", "var_selection"})
+    public String set;
+
+    @Param({"4", "5"})
+    public int size;
+
+    private List<int[][]> grids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grids = SudokuBenchmark.loadInstances(set, size, "all");
+        if (grids.isEmpty()) throw new IllegalStateException("no " + set + " instances of size " + size);
+        next = 0;
+    }
+
+    @Benchmark
+    public int[][] solve() {
+        int[][] grid = grids.get(next);
+        next = (next + 1) % grids.size();
+        return SudokuDLX.solve(grid, null, selection);
+    }
+}
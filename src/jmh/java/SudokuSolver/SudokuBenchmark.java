@@ -0,0 +1,136 @@
+package SudokuSolver;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks every engine on the instance sets in src/test/data/sudoku_instances.
+ * One operation solves one grid into a preallocated solution grid,
+ * the grids of the selected set, size and level are solved round robin.
+ *
+ * Run all combinations with the gc profiler through {@link #main(String[])}:
+ *     mvn -Pbenchmark test-compile exec:exec
+ * Regular JMH options can be passed along, e.g. to only run the 16x16 pruning instances of level 40:
+ *     mvn -Pbenchmark test-compile exec:exec -Dexec.args="-classpath %classpath SudokuSolver.SudokuBenchmark -p set=pruning -p size=4 -p level=40"
+ * or to compare the generic exact cover engine with the specialized array dancing links:
+ *     mvn -Pbenchmark test-compile exec:exec -Dexec.args="-classpath %classpath SudokuSolver.SudokuBenchmark -p engine=ARRAY_DLX,EXACT_COVER"
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SudokuBenchmark {
+
+    private static final String INSTANCES_PATH = "src/test/data/sudoku_instances/";
+
+    @Param({"DLX", "ARRAY_DLX", "BITMASK", "BACKTRACKING", "PIPELINE", "EXACT_COVER"})
+    public Solver.Engine engine;
+
+    @Param({"basic", "pruning", "var_selection", "large"})
+    public String set;
+
+    @Param({"3", "4", "5", "6", "7", "8", "10"})
+    public int size;
+
+    // a single level, or all levels of the set and size
+    @Param({"all"})
+    public String level;
+
+    private List<int[][]> grids;
+    private Solver solver;
+    private int[][] solution;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grids = loadInstances(set, size, level);
+        if (grids.isEmpty()) {
+            throw new IllegalStateException("no " + set + " instances of size " + size + " and level " + level);
+        }
+        solver = Solver.forSize(size*size, engine);
+        solution = new int[size*size][size*size];
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean solve() {
+        int[][] grid = grids.get(next);
+        next = (next + 1) % grids.size();
+        return solver.solve(grid, solution);
+    }
+
+    static List<int[][]> loadInstances(String set, int size, String level) {
+        String prefix = "size" + size + "_level" + (level.equals("all") ? "" : level + "_");
+        String[] names = new File(INSTANCES_PATH + set).list();
+        if (names == null) return Collections.emptyList();
+        Arrays.sort(names);
+
+        List<int[][]> instances = new ArrayList<>();
+        for (String name : names) {
+            if (!name.startsWith(prefix)) continue;
+            try (Scanner input = new Scanner(new File(INSTANCES_PATH + set + "/" + name))) {
+                int n = input.nextInt();
+                int[][] grid = new int[n*n][n*n];
+                input.nextInt();    // skip random value
+                for (int row = 0; row < n*n; row++) {
+                    for (int col = 0; col < n*n; col++) {
+                        grid[row][col] = input.nextInt();
+                    }
+                }
+                instances.add(grid);
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * runs every engine on every set and size that has instances, with the gc profiler enabled
+     * so the allocation rate per operation is reported next to the timings.
+     * Parameters passed with -p restrict the combinations that are run.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            if (!selected(cli, "engine", engine.name()).contains(engine.name())) continue;
+            for (String set : selected(cli, "set", "basic", "pruning", "var_selection", "large")) {
+                // the var_selection instances are built to defeat first-unfilled selection,
+                // the plain backtracking solver needs minutes per grid on them
+                if (engine == Solver.Engine.BACKTRACKING && (set.equals("var_selection") || set.equals("large"))) continue;
+                for (String size : selected(cli, "size", "3", "4", "5", "6", "7", "8", "10")) {
+                    int n = Integer.parseInt(size) * Integer.parseInt(size);
+                    if (engine == Solver.Engine.BITMASK && n > BitmaskSudokuSolver.MAX_SIZE) continue;
+                    String level = selected(cli, "level", "all").get(0);
+                    if (loadInstances(set, Integer.parseInt(size), level).isEmpty()) continue;
+
+                    Options options = new OptionsBuilder()
+                            .parent(cli)
+                            .include(SudokuBenchmark.class.getSimpleName())
+                            .param("engine", engine.name())
+                            .param("set", set)
+                            .param("size", size)
+                            .param("level", level)
+                            .addProfiler(GCProfiler.class)
+                            .build();
+                    new Runner(options).run();
+                }
+            }
+        }
+    }
+
+    private static List<String> selected(CommandLineOptions cli, String param, String... defaults) {
+        return new ArrayList<>(cli.getParameter(param).orElse(Arrays.asList(defaults)));
+    }
+}
@@ -0,0 +1,63 @@
+package SudokuSolver;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lane-wise batch propagation of {@link VectorBatchSolver} with solving the same grids one by
+ * one on the scalar engines. One operation solves every grid of the selected set and size.
+ *
+ *     mvn -Pbenchmark test-compile exec:exec -Dexec.args="--add-modules jdk.incubator.vector -classpath %classpath org.openjdk.jmh.Main VectorBatchBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class VectorBatchBenchmark {
+
+    // VECTOR is the batch solver, the others are Solver.Engine names solving grid by grid
+    @Param({"VECTOR", "DLX", "BACKTRACKING", "ARRAY_DLX", "BITMASK"})
+    public String engine;
+
+    @Param({"basic", "pruning"})
+    public String set;
+
+    @Param({"3"})
+    public int size;
+
+    private List<int[][]> grids;
+    private VectorBatchSolver batch;
+    private Solver solver;
+    private int[][] solution;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grids = SudokuBenchmark.loadInstances(set, size, "all");
+        if (grids.isEmpty()) throw new IllegalStateException("no " + set + " instances of size " + size);
+        if (engine.equals("VECTOR")) {
+            batch = new VectorBatchSolver(size*size);
+        } else {
+            solver = Solver.forSize(size*size, Solver.Engine.valueOf(engine));
+            solution = new int[size*size][size*size];
+        }
+    }
+
+    @Benchmark
+    public int solveAll() {
+        int solved = 0;
+        if (batch != null) {
+            for (int[][] grid : batch.solveAll(grids)) {
+                if (grid != null) solved++;
+            }
+        } else {
+            for (int[][] grid : grids) {
+                if (solver.solve(grid, solution)) solved++;
+            }
+        }
+        return solved;
+    }
+}
@@ -8,38 +8,78 @@ import com.googlecode.lanterna.screen.TerminalScreen;
 import com.googlecode.lanterna.terminal.DefaultTerminalFactory;
 import com.googlecode.lanterna.terminal.Terminal;
 
-import SudokuSolver.SudokuDLX;
+import SudokuSolver.ArraySudokuDLX;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 import java.util.Arrays;
 
 public class App 
 {
+    // search nodes the live solvable/unique checks may expand after every edit
+    private static final long CHECK_NODES = 20_000;
+
     public static void main( String[] args ) throws IOException
     {
+	// the side length of the grid, 9 unless another square size is passed
+	final int n = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+	final int subgridSize = (int) Math.round(Math.sqrt(n));
+	if (subgridSize * subgridSize != n || n > ArraySudokuDLX.MAX_SIZE) {
+	    System.err.println("grid size must be a square number up to " + ArraySudokuDLX.MAX_SIZE);
+	    System.exit(2);
+	}
+	final int digits = Integer.toString(n).length();
 
         // Setup terminal and screen layers
         Terminal terminal = new DefaultTerminalFactory().createTerminal();
         Screen screen = new TerminalScreen(terminal);
         screen.startScreen();
+        MultiWindowTextGUI gui = new MultiWindowTextGUI(screen, new DefaultWindowManager(), new EmptySpace(TextColor.ANSI.BLUE));
+
+	// the session follows every edit, solves run on a background thread and are cancelled by the next edit
+	final SudokuSession session = new SudokuSession(n);
+	final ExecutorService solver = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "sudoku-solver");
+		thread.setDaemon(true);
+		return thread;
+	    });
+	final Label status = new Label("");
+	final CompletableFuture<?>[] pending = new CompletableFuture<?>[1];
 
         // Create panel to hold components
         Panel panel = new Panel();
-        panel.setLayoutManager(new GridLayout(11));
+        panel.setLayoutManager(new GridLayout(n+2));
 
-	TextBox[] fields = new TextBox[9*9];
+	TextBox[] fields = new TextBox[n*n];
 
-	for (int i = 0; i < 9; i++) {
+	for (int i = 0; i < n; i++) {
 	    panel.addComponent(new EmptySpace(new TerminalSize(0,0)));
-	    for (int j = 0; j < 9; j++) {
-		TextBox tb = new TextBox(new TerminalSize(2,1)).setValidationPattern(Pattern.compile("[1-9]"));
-		fields[i*9+j] = tb;
+	    for (int j = 0; j < n; j++) {
+		TextBox tb = new TextBox(new TerminalSize(digits+1,1)).setValidationPattern(Pattern.compile("[1-9][0-9]{0," + (digits-1) + "}"));
+		fields[i*n+j] = tb;
+		final int row = i, col = j;
+		tb.setTextChangeListener((text, changedByUser) -> {
+			int val;
+			try {
+			    val = Integer.parseInt(text);
+			} catch (NumberFormatException e) {
+			    val = 0;
+			}
+			if (val > n) val = 0;
+			session.set(row, col, val);
+			// any change, typed or from Clear, makes a running solve stale; a finished solve clears pending before filling in
+			pending[0] = null;
+			status.setText(feedback(session, row, col));
+			status.setForegroundColor(session.hasConflicts() ? TextColor.ANSI.RED : TextColor.ANSI.DEFAULT);
+		    });
 		panel.addComponent(tb);
 	    }
 	    panel.addComponent(new EmptySpace(new TerminalSize(0,0)));
 	    // create some empty space
-	    for (int j = 0; j < 11; j++) {
+	    for (int j = 0; j < n+2; j++) {
 		panel.addComponent(new EmptySpace(new TerminalSize(1,1)));
 	    }
 	}
@@ -47,48 +87,66 @@ public class App
 	new Button("Clear", new Runnable() {
 		@Override
 		public void run() {
+		    // fields that are empty already do not report a change
+		    pending[0] = null;
 		    for (TextBox tb: fields) {
 			tb.setText("");
 		    }
+		    session.clear();
 		}
 	    }).addTo(panel);
-	for (int i = 0; i < 9; i++) {
+	for (int i = 0; i < n; i++) {
 	    panel.addComponent(new EmptySpace(new TerminalSize(0,0)));
 	}
 	new Button("Solve", new Runnable() {
 		@Override
 		public void run() {
-		    int[][] grid = new int[9][9];
-		    int i = 0;
-		    for (TextBox tb : fields) {
-			int a = i / 9;
-			int b = i % 9;
-			try {
-			    grid[a][b] = Integer.parseInt(tb.getText());
-			} catch (NumberFormatException e) {
-			    grid[a][b] = 0;
-			}
-			i++;
-		    }
-		    int[][] solution = SudokuDLX.solve(grid);
-		    i = 0;
-		    for (TextBox tb : fields) {
-			int a = i / 9;
-			int b = i % 9;
-			tb.setText(Integer.toString(solution[a][b]));
-			i++;
-		    }
+		    status.setText("solving...");
+		    CompletableFuture<SolveResult> solve = session.solveAsync(solver);
+		    pending[0] = solve;
+		    solve.thenAccept(result -> gui.getGUIThread().invokeLater(() -> {
+			    // the board changed while solving
+			    if (pending[0] != solve) return;
+			    pending[0] = null;
+			    if (result.getStatus() != SolveResult.Status.SOLVED) {
+				status.setText(result.getStatus().toString().toLowerCase().replace('_', ' '));
+				return;
+			    }
+			    int[][] solution = result.getSolution();
+			    for (int i = 0; i < n*n; i++) {
+				fields[i].setText(Integer.toString(solution[i / n][i % n]));
+			    }
+			    status.setText("solved");
+			}));
 		}
 	    }).addTo(panel);
+	panel.addComponent(status, GridLayout.createHorizontallyFilledLayoutData(n+2));
 
         // Create window to hold the panel
         BasicWindow window = new BasicWindow();
 	window.setHints(Arrays.asList(Window.Hint.CENTERED));
         window.setComponent(panel);
 
-        // Create gui and start gui
-        MultiWindowTextGUI gui = new MultiWindowTextGUI(screen, new DefaultWindowManager(), new EmptySpace(TextColor.ANSI.BLUE));
+        // Start gui
         gui.addWindowAndWait(window);
-        // TODO: link with sudoku solvers to create T/GUI for this application
+	solver.shutdownNow();
+        screen.stopScreen();
+    }
+
+    // conflicts, candidates of the edited cell and whether the board is still solvable and unique
+    private static String feedback(SudokuSession session, int row, int col) {
+	StringBuilder text = new StringBuilder();
+	if (session.hasConflicts()) {
+	    text.append(session.getConflicts().size()).append(" conflicting cells, ");
+	}
+	if (session.get(row, col) == 0) {
+	    text.append("candidates ").append(Arrays.toString(session.getCandidates(row, col))).append(", ");
+	}
+	SudokuSession.Answer solvable = session.isSolvable(CHECK_NODES);
+	text.append("solvable: ").append(solvable.toString().toLowerCase());
+	if (solvable == SudokuSession.Answer.YES) {
+	    text.append(", unique: ").append(session.isUnique(CHECK_NODES).toString().toLowerCase());
+	}
+	return text.toString();
     }
 }
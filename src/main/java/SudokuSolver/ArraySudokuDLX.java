@@ -0,0 +1,645 @@
+package SudokuSolver;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Dancing links solver that keeps every link in flat int arrays instead of a graph of
+ * DancingNode/ColumnNode objects.
+ * The complete structure of an empty grid is built once per grid size. The givens of a puzzle are
+ * applied by covering their rows and everything is uncovered again after the search, so the setup
+ * of a puzzle costs O(givens) and solving into a caller provided grid allocates nothing.
+ * The search is iterative, driven by the stack of picked rows, so its depth is not limited by the
+ * thread stack and it can be paused and resumed through {@link #beginSearch(int[][])} and
+ * {@link #continueSearch(long)}.
+ * Row nodes are laid out in aligned blocks of 4, so their left/right links are implied by their position
+ * and only the column headers store them. Together with 16 bit column ids this keeps a 100x100 grid
+ * at about 40MB, which is why plain sudoku does not run on the generic {@link ExactCover} search.
+ * Solving with a {@link SolveStats} counts search nodes, backtracks and covers, without one nothing is counted.
+ * Instances are not thread safe, use {@link #forSize(int)} to get one per thread.
+ */
+public class ArraySudokuDLX implements Solver {
+
+    public static final int MAX_SIZE = 100;
+
+    // search levels that are split into parallel tasks by default
+    public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+    private static final ThreadLocal<Map<Integer, ArraySudokuDLX>> instances = ThreadLocal.withInitial(HashMap::new);
+
+    private final int n;
+    private final int subgridSize;
+    private final int columns;
+    private final int firstRowNode;
+
+    // node 0 is the root, nodes [1, columns] are the column headers, row nodes start at the first multiple of 4 after that.
+    // the row of val x pos combination (row*n*n) + (col*n) + val are the 4 nodes starting at firstRowNode + 4*index
+    private final int[] left, right;    // only stored for the root and column headers
+    private final int[] up, down;
+    private final char[] column;        // column ids fit in 16 bits up to MAX_SIZE
+    private final int[] size;           // only meaningful for column header nodes
+    private final boolean[] satisfied;  // column headers covered by the givens
+    private final int[] givens;         // the first node of the row of every applied given
+    private final int[] solution;       // a node of every picked row, in pick order
+    private int givenCount;
+    private int depth;
+    private int baseDepth;              // rows picked below this depth are not revisited by the search
+    private boolean backtracking;       // whether the search continues with the next row of the deepest level
+    private int[][] grid;               // the grid being searched
+    private int searchCount;            // changes whenever a search begins or ends, so a stale solution stream notices
+    private SolveStats stats;           // only counted while solving with stats, null otherwise
+    // set when this state is one of the branches of a parallel search, shared by all branches
+    private final AtomicReference<ArraySudokuDLX> parallelSolution;
+
+    public ArraySudokuDLX(int n) {
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        if (n <= 0 || subgridSize * subgridSize != n) {
+            throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        }
+        if (n > MAX_SIZE) {
+            throw new IllegalArgumentException("grid size " + n + " is larger than " + MAX_SIZE);
+        }
+        this.n = n;
+        this.subgridSize = subgridSize;
+        this.columns = 4*n*n;
+        this.firstRowNode = (columns + 4) & ~3;
+
+        int nodes = firstRowNode + 4*n*n*n;
+        left = new int[columns + 1];
+        right = new int[columns + 1];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new char[nodes];
+        size = new int[columns + 1];
+        satisfied = new boolean[columns + 1];
+        givens = new int[n*n];
+        solution = new int[n*n];
+        parallelSolution = null;
+        buildTemplate();
+    }
+
+    // copies the link state of other, the immutable parts are shared
+    private ArraySudokuDLX(ArraySudokuDLX other, AtomicReference<ArraySudokuDLX> parallelSolution) {
+        this.n = other.n;
+        this.subgridSize = other.subgridSize;
+        this.columns = other.columns;
+        this.firstRowNode = other.firstRowNode;
+        this.left = other.left.clone();
+        this.right = other.right.clone();
+        this.up = other.up.clone();
+        this.down = other.down.clone();
+        this.size = other.size.clone();
+        this.solution = other.solution.clone();
+        this.column = other.column;
+        this.satisfied = other.satisfied;
+        this.givens = other.givens;
+        this.givenCount = other.givenCount;
+        this.depth = other.depth;
+        this.baseDepth = other.baseDepth;
+        this.backtracking = other.backtracking;
+        this.grid = other.grid;
+        this.parallelSolution = parallelSolution;
+    }
+
+    /**
+     * @param n the side length of the grid
+     * @return the instance cached for the calling thread, created on first use
+     */
+    public static ArraySudokuDLX forSize(int n) {
+        return instances.get().computeIfAbsent(n, ArraySudokuDLX::new);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution) {
+        try {
+            if (!beginSearch(grid)) return false;
+            if (continueSearch(Long.MAX_VALUE) != SearchStatus.FOUND) return false;
+            writeSolution(solution);
+            return true;
+        } finally {
+            endSearch();
+        }
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveStats stats) {
+        this.stats = stats;
+        try {
+            return Solver.super.solve(grid, solution, stats);
+        } finally {
+            this.stats = null;
+        }
+    }
+
+    /**
+     * solves the grid in chunks of nodes, checking the budget between chunks.
+     */
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        try {
+            if (!beginSearch(grid)) return false;
+            for (long chunk = budget.nextChunk(); chunk > 0; chunk = budget.nextChunk()) {
+                SearchStatus status = continueSearch(chunk);
+                if (status == SearchStatus.EXHAUSTED) return false;
+                if (status == SearchStatus.FOUND) {
+                    writeSolution(solution);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            endSearch();
+        }
+    }
+
+    /**
+     * solves the packed board without unpacking it, the givens are read from and the picked rows
+     * are written straight into the buffer.
+     */
+    @Override
+    public boolean solveInPlace(ByteBuffer boards, int offset, PackedBoards.Format format) {
+        format.checkSize(n);
+        try {
+            endSearch();
+            baseDepth = 0;
+            backtracking = false;
+            if (!applyGivens(boards, offset, format)) return false;
+            if (continueSearch(Long.MAX_VALUE) != SearchStatus.FOUND) return false;
+            for (int i = 0; i < depth; i++) {
+                int index = (solution[i] - firstRowNode) >> 2;
+                PackedBoards.set(boards, offset, index / n, format, index % n + 1);
+            }
+            return true;
+        } finally {
+            endSearch();
+        }
+    }
+
+    /**
+     * starts a search of the given grid, cells <= 0 are considered empty.
+     * A search that is still in progress is ended first.
+     * @return false if the givens contradict each other, continuing the search then reports EXHAUSTED
+     */
+    public boolean beginSearch(int[][] grid) {
+        if (Grids.validate(grid) != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        endSearch();
+        searchCount++;
+        this.grid = grid;
+        baseDepth = 0;
+        backtracking = false;
+        if (!applyGivens(grid)) {
+            restore();
+            backtracking = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * continues the search started by beginSearch until a solution is found, the search space is
+     * exhausted or maxNodes search nodes are expanded.
+     */
+    public SearchStatus continueSearch(long maxNodes) {
+        while (true) {
+            if (!backtracking) {
+                if (right[0] == 0) {
+                    // we have reached a solution, all constraints are met
+                    backtracking = true;
+                    return SearchStatus.FOUND;
+                }
+                if (parallelSolution != null && parallelSolution.get() != null) {
+                    // another branch already found a solution
+                    return SearchStatus.EXHAUSTED;
+                }
+                if (maxNodes-- <= 0) return SearchStatus.PAUSED;
+
+                int c = selectColumn();
+                if (stats != null) {
+                    stats.nodes++;
+                    if (stats.rootBranching < 0) stats.rootBranching = size[c];
+                }
+                cover(c);
+                if (down[c] == c) {
+                    // a constraint that cannot be satisfied anymore
+                    uncover(c);
+                    backtracking = true;
+                } else {
+                    pick(down[c]);
+                }
+            } else {
+                if (depth == baseDepth) return SearchStatus.EXHAUSTED;
+
+                // undo the choice of the deepest level and move on to the next row of its column
+                int row = solution[--depth];
+                int c = column[row];
+                if (stats != null) stats.backtracks++;
+                for (int j = leftOf(row); j != row; j = leftOf(j)) uncover(column[j]);
+                if (down[row] == c) {
+                    // every row of this column is tried, backtrack further
+                    uncover(c);
+                } else {
+                    pick(down[row]);
+                    backtracking = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * writes the solution last found by continueSearch into solution.
+     */
+    public void writeSolution(int[][] solution) {
+        writeSolution(grid, solution);
+    }
+
+    /**
+     * ends the current search and restores the empty grid structure.
+     */
+    public void endSearch() {
+        restore();
+        grid = null;
+        searchCount++;
+    }
+
+    /**
+     * counts the solutions of the given grid, stopping as soon as limit solutions are found.
+     * @return the number of solutions, at most limit
+     */
+    public int countSolutions(int[][] grid, int limit) {
+        int found = 0;
+        try {
+            if (!beginSearch(grid)) return 0;
+            while (found < limit && continueSearch(Long.MAX_VALUE) == SearchStatus.FOUND) {
+                found++;
+            }
+            return found;
+        } finally {
+            endSearch();
+        }
+    }
+
+    public boolean isUnique(int[][] grid) {
+        return countSolutions(grid, 2) == 1;
+    }
+
+    /**
+     * hands every solution of the given grid to visitor, one at a time, until it returns false.
+     * The visitor gets the same buffer for every solution and must not use this instance while visiting.
+     * @return the number of solutions visited
+     */
+    public long forEachSolution(int[][] grid, Predicate<int[][]> visitor) {
+        long found = 0;
+        int[][] solution = new int[n][n];
+        try {
+            if (!beginSearch(grid)) return 0;
+            while (continueSearch(Long.MAX_VALUE) == SearchStatus.FOUND) {
+                found++;
+                writeSolution(solution);
+                if (!visitor.test(solution)) break;
+            }
+            return found;
+        } finally {
+            endSearch();
+        }
+    }
+
+    /**
+     * lazily streams every solution of the given grid, the search only advances when the next solution is pulled.
+     * Memory stays bounded by the search depth no matter how many solutions there are, every solution is a new grid.
+     * The stream owns this instance until it is exhausted or closed, any other search on this instance
+     * in the meantime makes the stream throw a ConcurrentModificationException.
+     */
+    public Stream<int[][]> solutions(int[][] grid) {
+        boolean consistent = beginSearch(grid);
+        if (!consistent) endSearch();
+        int search = searchCount;
+        Spliterator<int[][]> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean done = !consistent;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super int[][]> action) {
+                if (done) return false;
+                if (searchCount != search) {
+                    throw new ConcurrentModificationException("the search of this stream was ended by another search");
+                }
+                if (continueSearch(Long.MAX_VALUE) != SearchStatus.FOUND) {
+                    done = true;
+                    endSearch();
+                    return false;
+                }
+                int[][] solution = new int[n][n];
+                writeSolution(solution);
+                action.accept(solution);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            if (searchCount == search) endSearch();
+        });
+    }
+
+    public int[][] solveParallel(int[][] grid) {
+        return solveParallel(grid, ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * solves the given grid by splitting the first levels of the search into parallel tasks.
+     * Every row of the column picked at a split level becomes a task with its own copy of the links,
+     * the first task that finds a solution stops all others.
+     * @param splitDepth the number of search levels that are split into tasks
+     * @return the solved grid, or null if the grid has no solution
+     */
+    public int[][] solveParallel(int[][] grid, ForkJoinPool pool, int splitDepth) {
+        try {
+            if (!beginSearch(grid)) return null;
+            AtomicReference<ArraySudokuDLX> found = new AtomicReference<>();
+            pool.invoke(new BranchTask(new ArraySudokuDLX(this, found), splitDepth));
+            ArraySudokuDLX solved = found.get();
+            if (solved == null) return null;
+            int[][] solution = new int[n][n];
+            solved.writeSolution(grid, solution);
+            return solution;
+        } finally {
+            endSearch();
+        }
+    }
+
+    // combines the givens with the picked rows
+    void writeSolution(int[][] grid, int[][] solved) {
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                solved[row][col] = grid[row][col];
+            }
+        }
+        for (int i = 0; i < depth; i++) {
+            int index = (solution[i] - firstRowNode) >> 2;
+            solved[index / (n*n)][(index / n) % n] = index % n + 1;
+        }
+    }
+
+    // links a row for every val x pos combination of an empty grid
+    private void buildTemplate() {
+        for (int c = 0; c <= columns; c++) {
+            left[c] = c - 1;
+            right[c] = c + 1;
+            up[c] = down[c] = c;
+            column[c] = (char) c;
+            size[c] = 0;
+        }
+        left[0] = columns;
+        right[columns] = 0;
+
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                for (int val = 0; val < n; val++) {
+                    int first = firstRowNode + 4*((row*n*n) + (col*n) + val);
+                    appendNode(cellColumn(row, col), first);
+                    appendNode(rowColumn(row, val), first + 1);
+                    appendNode(colColumn(col, val), first + 2);
+                    appendNode(subgridColumn(row, col, val), first + 3);
+                }
+            }
+        }
+    }
+
+    /**
+     * covers the row of every given, as if the search picked them.
+     * @return false if the givens contradict each other
+     */
+    private boolean applyGivens(int[][] grid) {
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] > 0 && !applyGiven((row*n) + col, grid[row][col] - 1)) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean applyGivens(ByteBuffer boards, int offset, PackedBoards.Format format) {
+        for (int cell = 0; cell < n*n; cell++) {
+            int val = PackedBoards.get(boards, offset, cell, format);
+            if (val > n) {
+                throw new IllegalArgumentException("value " + val + " of cell " + cell + " does not fit in a grid of size " + n);
+            }
+            if (val > 0 && !applyGiven(cell, val - 1)) return false;
+        }
+        return true;
+    }
+
+    private boolean applyGiven(int cell, int val) {
+        int first = firstRowNode + 4*((cell*n) + val);
+        for (int j = first; j < first + 4; j++) {
+            // another given already satisfies this constraint
+            if (satisfied[column[j]]) return false;
+        }
+        for (int j = first; j < first + 4; j++) {
+            satisfied[column[j]] = true;
+            cover(column[j]);
+        }
+        givens[givenCount++] = first;
+        return true;
+    }
+
+    // uncovers the rows picked by the search and the givens, leaving the empty grid template
+    private void restore() {
+        unwindSearch();
+        while (givenCount > 0) popGiven();
+    }
+
+    // uncovers the rows picked by the search, the givens stay applied
+    private void unwindSearch() {
+        while (depth > 0) {
+            int row = solution[--depth];
+            for (int j = leftOf(row); j != row; j = leftOf(j)) uncover(column[j]);
+            uncover(column[row]);
+        }
+    }
+
+    /*
+     * incremental givens for SudokuSession: givens are pushed and popped one at a time and searches
+     * start from whatever givens are applied, instead of from a grid.
+     */
+
+    /**
+     * applies val+1 in cell on top of the givens applied so far, no search may be in progress.
+     * @return false if it contradicts an applied given, nothing is applied then
+     */
+    boolean pushGiven(int cell, int val) {
+        if (depth > 0) throw new IllegalStateException("givens cannot change during a search");
+        return applyGiven(cell, val);
+    }
+
+    /**
+     * removes the given applied last, no search may be in progress.
+     */
+    void popGiven() {
+        if (depth > 0) throw new IllegalStateException("givens cannot change during a search");
+        int first = givens[--givenCount];
+        for (int j = first + 3; j >= first; j--) {
+            uncover(column[j]);
+            satisfied[column[j]] = false;
+        }
+    }
+
+    /**
+     * starts a search from the applied givens, ending the previous search but keeping the givens.
+     */
+    void beginSearchFromGivens() {
+        unwindSearch();
+        searchCount++;
+        baseDepth = 0;
+        backtracking = false;
+    }
+
+    /**
+     * ends the search started by beginSearchFromGivens, the givens stay applied.
+     */
+    void endSearchFromGivens() {
+        unwindSearch();
+        searchCount++;
+    }
+
+    /**
+     * @return the number of values that fit in the empty cell next to the applied givens
+     */
+    int candidateCount(int cell) {
+        return size[1 + cell];
+    }
+
+    /**
+     * writes the values that fit in the empty cell next to the applied givens into values, in increasing order.
+     * @return the number of values written
+     */
+    int candidates(int cell, int[] values) {
+        int count = 0;
+        int c = 1 + cell;
+        for (int node = down[c]; node != c; node = down[node]) {
+            values[count++] = (((node - firstRowNode) >> 2) % n) + 1;
+        }
+        return count;
+    }
+
+    // column headers are cells -> rows -> cols -> subgrids, offset by one for the root
+    private int cellColumn(int row, int col) {
+        return 1 + (row*n) + col;
+    }
+    private int rowColumn(int row, int val) {
+        return 1 + n*n + (row*n) + val;
+    }
+    private int colColumn(int col, int val) {
+        return 1 + 2*n*n + (col*n) + val;
+    }
+    private int subgridColumn(int row, int col, int val) {
+        int subgrid = ((row/subgridSize)*subgridSize) + (col/subgridSize);
+        return 1 + 3*n*n + (subgrid*n) + val;
+    }
+
+    // appends node at the bottom of column c
+    private void appendNode(int c, int node) {
+        column[node] = (char) c;
+        up[node] = up[c];
+        down[node] = c;
+        down[up[c]] = node;
+        up[c] = node;
+        size[c]++;
+    }
+
+    // picks row at the current depth and covers every column it satisfies
+    private void pick(int row) {
+        solution[depth++] = row;
+        if (stats != null && depth > stats.maxDepth) stats.maxDepth = depth;
+        for (int j = rightOf(row); j != row; j = rightOf(j)) cover(column[j]);
+    }
+
+    private int selectColumn() {
+        int selected = 0;
+        int min = Integer.MAX_VALUE;
+        for (int c = right[0]; c != 0; c = right[c]) {
+            if (size[c] >= min) continue;
+            selected = c;
+            min = size[c];
+            if (min == 0) break;
+        }
+        return selected;
+    }
+
+    // the other nodes of a row are the other nodes of its aligned block of 4
+    private static int rightOf(int node) {
+        return (node & ~3) | ((node + 1) & 3);
+    }
+    private static int leftOf(int node) {
+        return (node & ~3) | ((node + 3) & 3);
+    }
+
+    private void cover(int c) {
+        if (stats != null) stats.covers++;
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = rightOf(i); j != i; j = rightOf(j)) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        if (stats != null) stats.uncovers++;
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = leftOf(i); j != i; j = leftOf(j)) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    private static class BranchTask extends RecursiveAction {
+        private final ArraySudokuDLX state;
+        private final int splitDepth;
+
+        BranchTask(ArraySudokuDLX state, int splitDepth) {
+            this.state = state;
+            this.splitDepth = splitDepth;
+        }
+
+        @Override
+        protected void compute() {
+            if (state.parallelSolution.get() != null) return;
+            if (splitDepth <= 0 || state.right[0] == 0) {
+                state.baseDepth = state.depth;
+                if (state.continueSearch(Long.MAX_VALUE) == SearchStatus.FOUND) {
+                    state.parallelSolution.compareAndSet(null, state);
+                }
+                return;
+            }
+
+            int c = state.selectColumn();
+            state.cover(c);
+            List<BranchTask> branches = new ArrayList<>(state.size[c]);
+            for (int row = state.down[c]; row != c; row = state.down[row]) {
+                ArraySudokuDLX branch = new ArraySudokuDLX(state, state.parallelSolution);
+                branch.pick(row);
+                branches.add(new BranchTask(branch, splitDepth - 1));
+            }
+            invokeAll(branches);
+        }
+    }
+}
@@ -4,7 +4,13 @@ import java.util.*;
 
 public class BacktrackingSudokuSolver {
     
+    /**
+     * @return the grid with every cell the search could fill, or null if the givens contradict each other
+     */
     public static int[][] solve(int[][] grid) {
+        Grids.validate(grid);
+        // the search only checks the cells it fills, repeated givens would let it run through every candidate
+        if (Grids.hasRepeatedGivens(grid)) return null;
         int[][] _grid = new int[grid.length][grid.length];
         for (int r = 0; r < grid.length; r++) {
             for (int c = 0; c < grid.length; c++) {
@@ -12,16 +18,37 @@ public class BacktrackingSudokuSolver {
             }
         }
 
-        _solve(_grid);
+        _solve(_grid, null);
 
         return _grid;
     }
 
-    private static boolean _solve(int[][] grid) {
+    /**
+     * solves the grid, giving up once the budget is used up.
+     * @param budget the budget of the search, null for no limit
+     * @return the solved grid, or null if the grid has no solution or the budget stopped the search
+     */
+    public static int[][] solve(int[][] grid, SolveBudget budget) {
+        Grids.validate(grid);
+        if (Grids.hasRepeatedGivens(grid)) return null;
+        int[][] _grid = new int[grid.length][grid.length];
+        for (int r = 0; r < grid.length; r++) {
+            for (int c = 0; c < grid.length; c++) {
+                _grid[r][c] = grid[r][c];
+            }
+        }
+
+        return _solve(_grid, budget) ? _grid : null;
+    }
+
+    private static boolean _solve(int[][] grid, SolveBudget budget) {
         int[] pos = findUnfilled(grid); // get the first unfilled position
         if (pos[0] == -1) {
             return true;   // no unfilled position found
         }
+        if (budget != null && !budget.spend()) {
+            return false;   // out of budget, unwind without trying the remaining numbers
+        }
 
         int row = pos[0];
         int col = pos[1];
@@ -29,7 +56,7 @@ public class BacktrackingSudokuSolver {
         Set<Integer> possibleNums = findPossibleNumbers(grid, row, col);
         for (int num : possibleNums) {
             grid[row][col] = num;
-            if (_solve(grid) == true) {
+            if (_solve(grid, budget) == true) {
                 return true;        // solution was found
             }
             grid[row][col] = -1;    // no solution was found (yet)
@@ -0,0 +1,219 @@
+package SudokuSolver;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Solves many grids in parallel on a work-stealing pool.
+ * Every worker thread solves with its own cached {@link Solver} of the configured engine, so after
+ * the first grid of a size there is no per-puzzle setup left besides resetting its state.
+ * Results always come back in input order, unsolvable grids give null.
+ */
+public class BatchSolver implements AutoCloseable {
+
+    // lists are split until a task solves at most this many grids
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final Solver.Engine engine;
+    private final ThreadLocal<SolveStats> workerStats = ThreadLocal.withInitial(SolveStats::new);
+    private volatile SolverMetrics metrics;
+    private volatile SolutionStore store;
+
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchSolver(int parallelism) {
+        this(parallelism, 4*parallelism);
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     * @param maxInFlight the maximum number of grids taken from a stream that are not yet handed to the consumer
+     */
+    public BatchSolver(int parallelism, int maxInFlight) {
+        this(parallelism, maxInFlight, Solver.Engine.ARRAY_DLX);
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     * @param maxInFlight the maximum number of grids taken from a stream that are not yet handed to the consumer
+     * @param engine the engine every worker solves with
+     */
+    public BatchSolver(int parallelism, int maxInFlight, Solver.Engine engine) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive");
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be positive");
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxInFlight = maxInFlight;
+        this.engine = engine;
+    }
+
+    /**
+     * records the statistics of every following solve into metrics, null stops recording.
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * answers every following grid from store if it holds it and appends the new results, null stops using it.
+     * Packed boards are always solved without the store.
+     */
+    public void setStore(SolutionStore store) {
+        this.store = store;
+    }
+
+    public SolutionStore getStore() {
+        return store;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * solves all grids and returns the solutions in the same order.
+     */
+    public List<int[][]> solveAll(List<int[][]> grids) {
+        int[][][] solutions = new int[grids.size()][][];
+        pool.invoke(new SolveRange(this, grids, solutions, 0, grids.size()));
+        return Arrays.asList(solutions);
+    }
+
+    /**
+     * solves every board of a buffer of packed boards in place, see {@link PackedBoards}.
+     * Boards without a solution are left unchanged.
+     * @param n the side length of the boards
+     * @return for every board whether it was solved
+     */
+    public boolean[] solveAll(ByteBuffer boards, int n, PackedBoards.Format format) {
+        format.checkSize(n);
+        int boardBytes = PackedBoards.boardBytes(n, format);
+        boolean[] solved = new boolean[boards.limit() / boardBytes];
+        pool.invoke(new SolvePackedRange(this, boards, n, format, solved, 0, solved.length));
+        return solved;
+    }
+
+    /**
+     * solves a possibly unbounded stream of grids and hands the solutions to the consumer in input order.
+     * A new grid is only pulled from the stream when fewer than maxInFlight grids are pending,
+     * so the memory used stays bounded no matter how large the input is.
+     * The consumer is called on the calling thread.
+     */
+    public void solveAll(Stream<int[][]> grids, Consumer<int[][]> solutions) {
+        solveAll(grids.iterator(), solutions);
+    }
+
+    public void solveAll(Iterator<int[][]> grids, Consumer<int[][]> solutions) {
+        Deque<ForkJoinTask<int[][]>> pending = new ArrayDeque<>(maxInFlight);
+        while (grids.hasNext()) {
+            if (pending.size() == maxInFlight) {
+                solutions.accept(pending.poll().join());
+            }
+            int[][] grid = grids.next();
+            pending.add(pool.submit(() -> solve(grid)));
+        }
+        while (!pending.isEmpty()) {
+            solutions.accept(pending.poll().join());
+        }
+    }
+
+    private int[][] solve(int[][] grid) {
+        SolutionStore store = this.store;
+        if (store != null) {
+            SolveResult stored = store.lookup(grid);
+            if (stored != null) return stored.getSolution();
+        }
+
+        Solver solver = Solver.forSize(grid.length, engine);
+        SolverMetrics metrics = this.metrics;
+        int[][] solution;
+        if (metrics == null) {
+            solution = solver.solve(grid);
+        } else {
+            SolveStats stats = workerStats.get();
+            solution = new int[grid.length][grid.length];
+            if (!solver.solve(grid, solution, stats)) solution = null;
+            metrics.record(stats);
+        }
+        if (store != null) store.put(grid, solution);
+        return solution;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static class SolvePackedRange extends RecursiveAction {
+        private final BatchSolver batch;
+        private final ByteBuffer boards;
+        private final int n;
+        private final PackedBoards.Format format;
+        private final boolean[] solved;
+        private final int from, to;
+
+        SolvePackedRange(BatchSolver batch, ByteBuffer boards, int n, PackedBoards.Format format, boolean[] solved, int from, int to) {
+            this.batch = batch;
+            this.boards = boards;
+            this.n = n;
+            this.format = format;
+            this.solved = solved;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Solver solver = Solver.forSize(n, batch.engine);
+                int boardBytes = PackedBoards.boardBytes(n, format);
+                for (int i = from; i < to; i++) {
+                    solved[i] = solver.solveInPlace(boards, i * boardBytes, format);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolvePackedRange(batch, boards, n, format, solved, from, mid),
+                        new SolvePackedRange(batch, boards, n, format, solved, mid, to));
+            }
+        }
+    }
+
+    private static class SolveRange extends RecursiveAction {
+        private final BatchSolver batch;
+        private final List<int[][]> grids;
+        private final int[][][] solutions;
+        private final int from, to;
+
+        SolveRange(BatchSolver batch, List<int[][]> grids, int[][][] solutions, int from, int to) {
+            this.batch = batch;
+            this.grids = grids;
+            this.solutions = solutions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    solutions[i] = batch.solve(grids.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveRange(batch, grids, solutions, from, mid), new SolveRange(batch, grids, solutions, mid, to));
+            }
+        }
+    }
+}
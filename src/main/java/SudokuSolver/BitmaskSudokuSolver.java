@@ -0,0 +1,325 @@
+package SudokuSolver;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Backtracking solver that keeps the used values of every row, column and subgrid as a bitmask.
+ * The masks are updated incrementally on every assignment, naked and hidden singles are propagated
+ * before branching and the search always branches on the cell with the fewest candidates.
+ * Masks are longs, so grids up to 64x64 are supported.
+ * Solving with a {@link SolveStats} counts search nodes, backtracks and assignments, without one nothing is counted.
+ * Instances are not thread safe, use {@link #forSize(int)} to get one per thread.
+ */
+public class BitmaskSudokuSolver implements Solver {
+
+    public static final int MAX_SIZE = 64;
+
+    private static final ThreadLocal<Map<Integer, BitmaskSudokuSolver>> instances = ThreadLocal.withInitial(HashMap::new);
+
+    private final int n;
+    private final long all;             // mask with a bit for every value
+    private final int[] rowOf, colOf, subgridOf;
+    private final int[][] units;        // the cells of every row, column and subgrid
+    private final long[] rowUsed, colUsed, subgridUsed;
+    private final int[] values;         // 0 if the cell is empty, otherwise its value
+    private final int[] trail;          // cells assigned during the search, in assignment order
+    private int trailSize;
+    private SolveStats stats;           // only counted while solving with stats, null otherwise
+    private SolveBudget budget;         // only checked while solving with a budget, null otherwise
+
+    public BitmaskSudokuSolver(int n) {
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        if (n <= 0 || subgridSize * subgridSize != n) {
+            throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        }
+        if (n > MAX_SIZE) {
+            throw new IllegalArgumentException("grid size " + n + " is larger than " + MAX_SIZE);
+        }
+        this.n = n;
+        this.all = n == 64 ? -1L : (1L << n) - 1;
+
+        rowOf = new int[n*n];
+        colOf = new int[n*n];
+        subgridOf = new int[n*n];
+        units = new int[3*n][n];
+        int[] filled = new int[3*n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int cell = (row*n) + col;
+                int subgrid = ((row/subgridSize)*subgridSize) + (col/subgridSize);
+                rowOf[cell] = row;
+                colOf[cell] = col;
+                subgridOf[cell] = subgrid;
+                units[row][filled[row]++] = cell;
+                units[n + col][filled[n + col]++] = cell;
+                units[2*n + subgrid][filled[2*n + subgrid]++] = cell;
+            }
+        }
+
+        rowUsed = new long[n];
+        colUsed = new long[n];
+        subgridUsed = new long[n];
+        values = new int[n*n];
+        trail = new int[n*n];
+    }
+
+    /**
+     * @param n the side length of the grid
+     * @return the instance cached for the calling thread, created on first use
+     */
+    public static BitmaskSudokuSolver forSize(int n) {
+        return instances.get().computeIfAbsent(n, BitmaskSudokuSolver::new);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution) {
+        if (Grids.validate(grid) != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        if (!load(grid)) return false;
+        if (!search(0)) return false;
+
+        for (int cell = 0; cell < n*n; cell++) {
+            solution[rowOf[cell]][colOf[cell]] = values[cell];
+        }
+        return true;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        this.budget = budget;
+        try {
+            return solve(grid, solution);
+        } finally {
+            this.budget = null;
+        }
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveStats stats) {
+        this.stats = stats;
+        try {
+            return Solver.super.solve(grid, solution, stats);
+        } finally {
+            this.stats = null;
+        }
+    }
+
+    /**
+     * checks whether grid has a solution in which the empty cell (row, col) holds another value than val.
+     * When the grid with val filled in has a unique solution, this tells whether emptying the cell keeps it
+     * unique, without exhausting the subtree of val like counting the solutions would.
+     */
+    public boolean hasSolutionWithout(int[][] grid, int row, int col, int val) {
+        if (Grids.validate(grid) != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        if (!load(grid)) return false;
+        int cell = (row*n) + col;
+        long candidates = candidates(cell) & ~(1L << (val - 1));
+        while (candidates != 0) {
+            int other = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            assign(cell, other);
+            if (search(0)) return true;
+            undo(0);
+        }
+        return false;
+    }
+
+    /**
+     * solves the packed board without unpacking it into a grid.
+     */
+    @Override
+    public boolean solveInPlace(ByteBuffer boards, int offset, PackedBoards.Format format) {
+        format.checkSize(n);
+        clear();
+        for (int cell = 0; cell < n*n; cell++) {
+            int val = PackedBoards.get(boards, offset, cell, format);
+            if (val > n) {
+                throw new IllegalArgumentException("value " + val + " of cell " + cell + " does not fit in a grid of size " + n);
+            }
+            if (val > 0 && !loadGiven(cell, val - 1)) return false;
+        }
+        trailSize = 0;  // givens are never undone
+        if (!search(0)) return false;
+
+        for (int cell = 0; cell < n*n; cell++) {
+            PackedBoards.set(boards, offset, cell, format, values[cell]);
+        }
+        return true;
+    }
+
+    /**
+     * fills the masks with the givens of the grid.
+     * @return false if the givens already contradict each other
+     */
+    private boolean load(int[][] grid) {
+        clear();
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] > 0 && !loadGiven((row*n) + col, grid[row][col] - 1)) return false;
+            }
+        }
+        trailSize = 0;  // givens are never undone
+        return true;
+    }
+
+    private void clear() {
+        Arrays.fill(rowUsed, 0);
+        Arrays.fill(colUsed, 0);
+        Arrays.fill(subgridUsed, 0);
+        Arrays.fill(values, 0);
+        trailSize = 0;
+    }
+
+    private boolean loadGiven(int cell, int val) {
+        if ((candidates(cell) & (1L << val)) == 0) return false;
+        assign(cell, val);
+        return true;
+    }
+
+    private boolean search(int depth) {
+        int mark = trailSize;
+        if (budget != null && !budget.spend()) {
+            // out of budget, every level unwinds without trying its remaining candidates
+            return false;
+        }
+        if (stats != null) {
+            stats.nodes++;
+            if (depth > stats.maxDepth) stats.maxDepth = depth;
+        }
+        if (!propagate()) {
+            undo(mark);
+            return false;
+        }
+
+        int cell = selectCell();
+        if (cell == -1) {
+            // every cell is filled
+            return true;
+        }
+
+        int branchMark = trailSize;
+        long candidates = candidates(cell);
+        if (stats != null && stats.rootBranching < 0) stats.rootBranching = Long.bitCount(candidates);
+        while (candidates != 0) {
+            int val = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            assign(cell, val);
+            if (search(depth + 1)) return true;
+            if (stats != null) stats.backtracks++;
+            undo(branchMark);
+        }
+
+        // none of the candidates lead to a solution, start backtracking
+        undo(mark);
+        return false;
+    }
+
+    /**
+     * assigns naked and hidden singles until nothing changes anymore.
+     * @return false if a cell without candidates or a value without a place in some unit was found
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // naked singles: cells with a single candidate left
+            for (int cell = 0; cell < n*n; cell++) {
+                if (values[cell] != 0) continue;
+                long candidates = candidates(cell);
+                if (candidates == 0) return false;
+                if ((candidates & (candidates - 1)) == 0) {
+                    assign(cell, Long.numberOfTrailingZeros(candidates));
+                    changed = true;
+                }
+            }
+
+            // hidden singles: values that fit in only one cell of a row, column or subgrid
+            for (int u = 0; u < units.length; u++) {
+                int[] unit = units[u];
+                long once = 0, twice = 0;
+                for (int cell : unit) {
+                    if (values[cell] != 0) continue;
+                    long candidates = candidates(cell);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+                long missing = all & ~usedOf(u);
+                if ((missing & ~once) != 0) return false;
+
+                long hidden = once & ~twice;
+                while (hidden != 0) {
+                    int val = Long.numberOfTrailingZeros(hidden);
+                    hidden &= hidden - 1;
+                    for (int cell : unit) {
+                        if (values[cell] != 0 || (candidates(cell) & (1L << val)) == 0) continue;
+                        assign(cell, val);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * finds the empty cell with the fewest candidates.
+     * @return the cell, or -1 if every cell is filled
+     */
+    private int selectCell() {
+        int selected = -1;
+        int min = Integer.MAX_VALUE;
+        for (int cell = 0; cell < n*n; cell++) {
+            if (values[cell] != 0) continue;
+            int count = Long.bitCount(candidates(cell));
+            if (count >= min) continue;
+            selected = cell;
+            min = count;
+            if (min <= 2) break;    // singles are already propagated, so this is the best we can get
+        }
+        return selected;
+    }
+
+    private long candidates(int cell) {
+        return all & ~(rowUsed[rowOf[cell]] | colUsed[colOf[cell]] | subgridUsed[subgridOf[cell]]);
+    }
+
+    private long usedOf(int unit) {
+        if (unit < n) return rowUsed[unit];
+        if (unit < 2*n) return colUsed[unit - n];
+        return subgridUsed[unit - 2*n];
+    }
+
+    private void assign(int cell, int val) {
+        long bit = 1L << val;
+        values[cell] = val + 1;
+        rowUsed[rowOf[cell]] |= bit;
+        colUsed[colOf[cell]] |= bit;
+        subgridUsed[subgridOf[cell]] |= bit;
+        trail[trailSize++] = cell;
+        if (stats != null) stats.covers++;
+    }
+
+    // unassigns every cell assigned after the trail had the given size
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            long bit = 1L << (values[cell] - 1);
+            values[cell] = 0;
+            rowUsed[rowOf[cell]] &= ~bit;
+            colUsed[colOf[cell]] &= ~bit;
+            subgridUsed[subgridOf[cell]] &= ~bit;
+            if (stats != null) stats.uncovers++;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package SudokuSolver;
+
+import java.util.*;
+
+/**
+ * Generic dancing links engine for exact cover problems, with every link in flat int arrays.
+ * Primary columns must be covered exactly once, secondary columns at most once. Rows are added with
+ * {@link #addRow(int...)} and keep the order they were added in as their id.
+ * The structure is built once and can be searched many times: {@link #choose(int)} fixes rows before a
+ * search, like the givens of a puzzle, and {@link #endSearch()} uncovers everything again.
+ * The search is iterative and resumable like the one of {@link ArraySudokuDLX}, and reports the same
+ * {@link SearchStatus}. Plain sudoku keeps that separate copy of the search on purpose: its rows have exactly
+ * 4 nodes, so it stores no left/right links and only 16 bit column ids, which keeps a 100x100 grid at about
+ * 40MB where this engine needs about 100MB, and it counts {@link SolveStats} and keeps a stack of givens for
+ * {@link SudokuSession}. On 9x9 grids both searches take the same time once warm.
+ * A {@link RowFilter} can veto rows during the search, for side constraints that are not exact cover.
+ * Instances are not thread safe.
+ */
+public class ExactCover {
+
+    /**
+     * side constraint that is consulted before a row is picked.
+     * Every row that was entered successfully is left again in reverse order when the search undoes it.
+     */
+    public interface RowFilter {
+        /**
+         * @return false to skip the row, the filter then does not get a matching leave call
+         */
+        boolean enter(int row);
+
+        void leave(int row);
+    }
+
+    private final int primaryColumns;
+    private final int columns;
+
+    // node 0 is the root, nodes [1, columns] are the column headers, only the primary ones are linked to the root
+    private int[] left, right, up, down;
+    private int[] column;
+    private int[] rowOf;            // the row id of every row node
+    private final int[] size;       // only meaningful for column header nodes
+    private final boolean[] covered;// column headers covered by chosen rows
+    private int nodes;              // the number of nodes in use
+    private int[] rowStart;         // the first node of every row
+    private int rows;
+
+    private int[] chosen = new int[16]; // the first node of every row fixed by choose
+    private int chosenCount;
+    private int[] solution;         // a node of every row picked by the search, in pick order
+    private int depth;
+    private int baseDepth;
+    private boolean backtracking;
+    private boolean searching;
+    private RowFilter filter;
+
+    /**
+     * @param primaryColumns the number of columns that must be covered exactly once, ids [0, primaryColumns)
+     * @param secondaryColumns the number of columns that may be covered at most once, they follow the primary ones
+     */
+    public ExactCover(int primaryColumns, int secondaryColumns) {
+        if (primaryColumns < 0 || secondaryColumns < 0) throw new IllegalArgumentException("column counts must not be negative");
+        this.primaryColumns = primaryColumns;
+        this.columns = primaryColumns + secondaryColumns;
+        int capacity = columns + 1 + 64;
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        column = new int[capacity];
+        rowOf = new int[capacity];
+        size = new int[columns + 1];
+        covered = new boolean[columns + 1];
+        rowStart = new int[16];
+        solution = new int[primaryColumns + 1];
+
+        for (int c = 0; c <= columns; c++) {
+            up[c] = down[c] = c;
+            column[c] = c;
+            rowOf[c] = -1;
+            left[c] = right[c] = c;     // secondary columns stay out of the root list
+        }
+        for (int c = 0; c <= primaryColumns; c++) {
+            left[c] = c == 0 ? primaryColumns : c - 1;
+            right[c] = c == primaryColumns ? 0 : c + 1;
+        }
+        nodes = columns + 1;
+    }
+
+    public int getPrimaryColumns() {
+        return primaryColumns;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @param filter the side constraint to consult during the search, null for none
+     */
+    public void setFilter(RowFilter filter) {
+        if (searching) throw new IllegalStateException("the filter cannot change during a search");
+        this.filter = filter;
+    }
+
+    /**
+     * adds a row that covers the given columns.
+     * @return the id of the row
+     */
+    public int addRow(int... rowColumns) {
+        if (searching) throw new IllegalStateException("rows cannot be added during a search");
+        if (rowColumns.length == 0) throw new IllegalArgumentException("a row must cover at least one column");
+        for (int i = 0; i < rowColumns.length; i++) {
+            if (rowColumns[i] < 0 || rowColumns[i] >= columns) {
+                throw new IllegalArgumentException("column " + rowColumns[i] + " does not exist");
+            }
+            for (int j = 0; j < i; j++) {
+                if (rowColumns[i] == rowColumns[j]) throw new IllegalArgumentException("column " + rowColumns[i] + " is listed twice");
+            }
+        }
+
+        ensureCapacity(nodes + rowColumns.length);
+        if (rows == rowStart.length) rowStart = Arrays.copyOf(rowStart, 2*rows);
+        int first = nodes;
+        for (int i = 0; i < rowColumns.length; i++) {
+            int node = nodes++;
+            int c = rowColumns[i] + 1;
+            column[node] = c;
+            rowOf[node] = rows;
+            up[node] = up[c];
+            down[node] = c;
+            down[up[c]] = node;
+            up[c] = node;
+            size[c]++;
+            left[node] = i == 0 ? first + rowColumns.length - 1 : node - 1;
+            right[node] = i == rowColumns.length - 1 ? first : node + 1;
+        }
+        rowStart[rows] = first;
+        return rows++;
+    }
+
+    /**
+     * starts a new search, a search that is still in progress is ended first.
+     */
+    public void beginSearch() {
+        endSearch();
+        searching = true;
+        baseDepth = 0;
+        backtracking = false;
+    }
+
+    /**
+     * fixes a row before the search continues, as the given of a puzzle.
+     * @return false if the row conflicts with the rows chosen before or is vetoed by the filter,
+     * the search then stays exhausted until it is ended
+     */
+    public boolean choose(int row) {
+        if (!searching || depth > 0) throw new IllegalStateException("rows can only be chosen before the search continues");
+        if (row < 0 || row >= rows) throw new IllegalArgumentException("row " + row + " does not exist");
+        int first = rowStart[row];
+        int j = first;
+        do {
+            if (covered[column[j]]) {
+                backtracking = true;
+                return false;
+            }
+            j = right[j];
+        } while (j != first);
+        if (filter != null && !filter.enter(row)) {
+            backtracking = true;
+            return false;
+        }
+
+        j = first;
+        do {
+            covered[column[j]] = true;
+            cover(column[j]);
+            j = right[j];
+        } while (j != first);
+        if (chosenCount == chosen.length) chosen = Arrays.copyOf(chosen, 2*chosenCount);
+        chosen[chosenCount++] = first;
+        return true;
+    }
+
+    /**
+     * continues the search until a solution is found, the search space is exhausted or maxNodes search
+     * nodes are expanded.
+     */
+    public SearchStatus continueSearch(long maxNodes) {
+        if (!searching) throw new IllegalStateException("no search in progress");
+        while (true) {
+            if (!backtracking) {
+                if (right[0] == 0) {
+                    // every primary column is covered
+                    backtracking = true;
+                    return SearchStatus.FOUND;
+                }
+                if (maxNodes-- <= 0) return SearchStatus.PAUSED;
+
+                int c = selectColumn();
+                cover(c);
+                if (!pickFrom(down[c], c)) {
+                    uncover(c);
+                    backtracking = true;
+                }
+            } else {
+                if (depth == baseDepth) return SearchStatus.EXHAUSTED;
+
+                // undo the choice of the deepest level and move on to the next row of its column
+                int row = solution[--depth];
+                int c = column[row];
+                unpick(row);
+                if (pickFrom(down[row], c)) {
+                    backtracking = false;
+                } else {
+                    uncover(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the ids of the chosen rows followed by the rows picked by the search, for the solution last found
+     */
+    public int[] getSolution() {
+        int[] ids = new int[chosenCount + depth];
+        for (int i = 0; i < chosenCount; i++) ids[i] = rowOf[chosen[i]];
+        for (int i = 0; i < depth; i++) ids[chosenCount + i] = rowOf[solution[i]];
+        return ids;
+    }
+
+    /**
+     * @return the number of rows picked by the search, without the chosen rows
+     */
+    public int getPickedRows() {
+        return depth;
+    }
+
+    /**
+     * @return the id of the i-th row picked by the search
+     */
+    public int getPickedRow(int i) {
+        return rowOf[solution[i]];
+    }
+
+    /**
+     * ends the current search and uncovers every column again.
+     */
+    public void endSearch() {
+        while (depth > 0) {
+            int row = solution[--depth];
+            unpick(row);
+            uncover(column[row]);
+        }
+        while (chosenCount > 0) {
+            int first = chosen[--chosenCount];
+            int j = first;
+            do {
+                j = left[j];
+                uncover(column[j]);
+                covered[column[j]] = false;
+            } while (j != first);
+            if (filter != null) filter.leave(rowOf[first]);
+        }
+        searching = false;
+    }
+
+    /**
+     * @return the ids of the rows of the first solution, or null if there is none
+     */
+    public int[] solve() {
+        try {
+            beginSearch();
+            return continueSearch(Long.MAX_VALUE) == SearchStatus.FOUND ? getSolution() : null;
+        } finally {
+            endSearch();
+        }
+    }
+
+    /**
+     * counts the solutions, stopping as soon as limit solutions are found.
+     */
+    public long countSolutions(long limit) {
+        long found = 0;
+        try {
+            beginSearch();
+            while (found < limit && continueSearch(Long.MAX_VALUE) == SearchStatus.FOUND) {
+                found++;
+            }
+            return found;
+        } finally {
+            endSearch();
+        }
+    }
+
+    // picks the first row from start down to column header c that the filter accepts
+    private boolean pickFrom(int start, int c) {
+        for (int row = start; row != c; row = down[row]) {
+            if (filter != null && !filter.enter(rowOf[row])) continue;
+            solution[depth++] = row;
+            for (int j = right[row]; j != row; j = right[j]) cover(column[j]);
+            return true;
+        }
+        return false;
+    }
+
+    private void unpick(int row) {
+        for (int j = left[row]; j != row; j = left[j]) uncover(column[j]);
+        if (filter != null) filter.leave(rowOf[row]);
+    }
+
+    private int selectColumn() {
+        int selected = 0;
+        int min = Integer.MAX_VALUE;
+        for (int c = right[0]; c != 0; c = right[c]) {
+            if (size[c] >= min) continue;
+            selected = c;
+            min = size[c];
+            if (min == 0) break;
+        }
+        return selected;
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= up.length) return;
+        int capacity = Math.max(needed, 2*up.length);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        up = Arrays.copyOf(up, capacity);
+        down = Arrays.copyOf(down, capacity);
+        column = Arrays.copyOf(column, capacity);
+        rowOf = Arrays.copyOf(rowOf, capacity);
+    }
+}
@@ -0,0 +1,69 @@
+package SudokuSolver;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Command line pipeline that streams puzzles from a file, solves them on all cores and streams
+ * the solutions out in input order, one per line.
+ * Puzzles go through the {@link PresolvePipeline}, so only the ones logic cannot settle are searched.
+ * Memory stays constant regardless of the size of the input.
+ *
+ * With a store, puzzles solved by an earlier run are answered from the {@link SolutionStore} and new
+ * results are added to it. The store file is created if it does not exist.
+ *
+ * usage: FileSolver <input> [<output>] [<store>]
+ * Use - as input or output to read from stdin or write to stdout, the output defaults to stdout.
+ */
+public class FileSolver {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("usage: FileSolver <input> [<output>] [<store>]");
+            System.exit(2);
+        }
+        String input = args[0];
+        String output = args.length >= 2 ? args[1] : "-";
+        SolutionStore store = args.length == 3
+                ? SolutionStore.open(Path.of(args[2]), SolutionStore.DEFAULT_CAPACITY, SolutionStore.DEFAULT_DATA_BYTES)
+                : null;
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        PresolvePipeline.Counters stages = PresolvePipeline.sharedCounters();
+        stages.reset();
+        long start = System.nanoTime();
+        long[] counts = new long[2];    // solved, unsolvable
+        try (PuzzleReader reader = input.equals("-")
+                    ? new PuzzleReader(new FileInputStream(FileDescriptor.in).getChannel())
+                    : PuzzleReader.open(Path.of(input));
+             PuzzleWriter writer = output.equals("-")
+                    ? new PuzzleWriter(new FileOutputStream(FileDescriptor.out).getChannel())
+                    : PuzzleWriter.create(Path.of(output));
+             BatchSolver batch = new BatchSolver(parallelism, 4*parallelism, Solver.Engine.PIPELINE)) {
+            batch.setStore(store);
+            batch.solveAll(reader, solution -> {
+                counts[solution != null ? 0 : 1]++;
+                try {
+                    writer.write(solution);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("solved %d, unsolvable %d in %.2fs (%.0f puzzles/s)%n",
+                counts[0], counts[1], seconds, (counts[0] + counts[1]) / seconds);
+        System.err.printf("rejected %d, solved by logic %d, refuted by logic %d, searched %d%n",
+                stages.getRejected(), stages.getSolvedByLogic(), stages.getRefutedByLogic(), stages.getSearched());
+        if (store != null) {
+            store.close();
+            System.err.printf("store: %d hits, %d misses, %d records, %.0f%% full%n",
+                    store.getHits(), store.getMisses(), store.size(), 100*store.getFill());
+        }
+    }
+}
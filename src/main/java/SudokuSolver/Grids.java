@@ -0,0 +1,88 @@
+package SudokuSolver;
+
+/**
+ * Input checks shared by the solvers.
+ */
+public class Grids {
+
+    private Grids() {
+    }
+
+    /**
+     * checks that grid is an n x n grid where n is a square number and every value fits in the grid,
+     * values <= 0 are empty cells.
+     * @return n, the side length of the grid
+     * @throws IllegalArgumentException if the grid is not a valid sudoku grid
+     */
+    public static int validate(int[][] grid) {
+        if (grid == null) throw new IllegalArgumentException("grid is null");
+        int n = grid.length;
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        if (n == 0 || subgridSize * subgridSize != n) {
+            throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        }
+        for (int row = 0; row < n; row++) {
+            if (grid[row] == null || grid[row].length != n) {
+                throw new IllegalArgumentException("row " + row + " does not have " + n + " cells");
+            }
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] > n) {
+                    throw new IllegalArgumentException("value " + grid[row][col] + " at (" + row + "," + col
+                            + ") does not fit in a grid of size " + n);
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * checks the grid like {@link #validate(int[][])} and additionally that no given repeats in its row,
+     * column or subgrid.
+     * @return n, the side length of the grid
+     * @throws IllegalArgumentException if the grid is not a valid sudoku grid or its givens contradict each other
+     */
+    public static int validateGivens(int[][] grid) {
+        int n = validate(grid);
+        String repeated = findRepeatedGiven(grid);
+        if (repeated != null) throw new IllegalArgumentException(repeated);
+        return n;
+    }
+
+    /**
+     * @param grid a grid that passed {@link #validate(int[][])}
+     * @return whether some given repeats in its row, column or subgrid, the grid has no solution then
+     */
+    public static boolean hasRepeatedGivens(int[][] grid) {
+        return findRepeatedGiven(grid) != null;
+    }
+
+    // a single pass over row, column and subgrid bitmasks, n can exceed 64 so every unit gets several words
+    private static String findRepeatedGiven(int[][] grid) {
+        int n = grid.length;
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        int words = (n + 63) / 64;
+        long[] used = new long[3 * n * words];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int val = grid[row][col];
+                if (val <= 0) continue;
+                int word = (val - 1) >>> 6;
+                long bit = 1L << ((val - 1) & 63);
+                int subgrid = ((row / subgridSize) * subgridSize) + (col / subgridSize);
+                int inRow = row * words + word;
+                int inCol = (n + col) * words + word;
+                int inSubgrid = (2*n + subgrid) * words + word;
+                String unit = (used[inRow] & bit) != 0 ? "row"
+                        : (used[inCol] & bit) != 0 ? "column"
+                        : (used[inSubgrid] & bit) != 0 ? "subgrid" : null;
+                if (unit != null) {
+                    return "value " + val + " at (" + row + "," + col + ") repeats in its " + unit;
+                }
+                used[inRow] |= bit;
+                used[inCol] |= bit;
+                used[inSubgrid] |= bit;
+            }
+        }
+        return null;
+    }
+}
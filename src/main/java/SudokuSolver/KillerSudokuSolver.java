@@ -0,0 +1,91 @@
+package SudokuSolver;
+
+import java.util.*;
+
+/**
+ * Killer sudoku on the generic {@link ExactCover} engine.
+ * A cage may hold every value at most once, which is still exact cover with a secondary column per
+ * cage and value, but its cells must also add up to the sum of the cage, which is not. The sums are
+ * checked by a {@link ExactCover.RowFilter} while the search picks rows: a value is rejected when the
+ * cells left in its cage can no longer reach the sum with distinct values.
+ * Instances are not thread safe.
+ */
+public class KillerSudokuSolver implements Solver {
+
+    private final int n;
+    private final VariantSudokuSolver solver;
+    private final int[] cageOf;     // the cage of every cell, -1 for cells outside the cages
+    private final int[] sums;       // the sum of every cage
+    private final int[] total;      // the sum of the values placed in every cage so far
+    private final int[] open;       // the number of empty cells of every cage
+
+    /**
+     * @param n the side length of the grid, the regions are its subgrids
+     * @param cages the cells (row*n + col) of every cage, no cell is in two cages
+     * @param sums the sum of every cage
+     */
+    public KillerSudokuSolver(int n, List<int[]> cages, int[] sums) {
+        if (cages.size() != sums.length) throw new IllegalArgumentException("every cage needs a sum");
+        this.n = n;
+        this.solver = new VariantSudokuSolver(VariantSudokuSolver.subgrids(n), Collections.emptyList(), cages);
+        this.cageOf = new int[n*n];
+        this.sums = sums.clone();
+        this.total = new int[cages.size()];
+        this.open = new int[cages.size()];
+        Arrays.fill(cageOf, -1);
+        for (int cage = 0; cage < cages.size(); cage++) {
+            for (int cell : cages.get(cage)) {
+                if (cageOf[cell] >= 0) throw new IllegalArgumentException("cell " + cell + " is in two cages");
+                cageOf[cell] = cage;
+            }
+            open[cage] = cages.get(cage).length;
+        }
+        solver.getCover().setFilter(new SumFilter());
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution) {
+        return solver.solve(grid, solution);
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        return solver.solve(grid, solution, budget);
+    }
+
+    /**
+     * counts the solutions of the given grid, stopping as soon as limit solutions are found.
+     */
+    public long countSolutions(int[][] grid, long limit) {
+        return solver.countSolutions(grid, limit);
+    }
+
+    // keeps the running total of every cage and rejects values that make its sum unreachable
+    private class SumFilter implements ExactCover.RowFilter {
+        @Override
+        public boolean enter(int row) {
+            int cage = cageOf[row / n];
+            if (cage < 0) return true;
+            int remaining = sums[cage] - total[cage] - (row % n) - 1;
+            int cells = open[cage] - 1;
+            // the smallest and largest sums of cells distinct values
+            if (remaining < cells*(cells + 1)/2 || remaining > cells*(2*n - cells + 1)/2) return false;
+            total[cage] += (row % n) + 1;
+            open[cage] = cells;
+            return true;
+        }
+
+        @Override
+        public void leave(int row) {
+            int cage = cageOf[row / n];
+            if (cage < 0) return;
+            total[cage] -= (row % n) + 1;
+            open[cage]++;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package SudokuSolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays the instances in src/test/data/sudoku_instances against a running {@link SolverService} and
+ * reports the latency percentiles and the throughput of its /solve endpoint.
+ * Every client thread sends its next request as soon as the previous one is answered, so the offered
+ * load grows with the concurrency until the service starts rejecting requests.
+ *
+ * usage: LoadGenerator [<url>] [<concurrency>] [<requests>]
+ */
+public class LoadGenerator {
+
+    private static final String INSTANCES_PATH = "src/test/data/sudoku_instances/";
+
+    public static class Report {
+        private final int requests;
+        private final long nanos;
+        private final long[] latencies;     // sorted, of the answered requests
+        private final long solved, rejected, failed;
+
+        Report(int requests, long nanos, long[] latencies, long solved, long rejected, long failed) {
+            this.requests = requests;
+            this.nanos = nanos;
+            this.latencies = latencies;
+            this.solved = solved;
+            this.rejected = rejected;
+            this.failed = failed;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public double getThroughput() {
+            return requests / (nanos / 1e9);
+        }
+
+        /**
+         * @param percentile in [0, 100]
+         * @return the latency in microseconds below which the given share of the requests was answered
+         */
+        public long getLatencyMicros(double percentile) {
+            if (latencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1000;
+        }
+
+        public long getSolved() {
+            return solved;
+        }
+
+        /** @return the number of requests the service turned away with 503 */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /** @return the number of requests that failed or were answered with anything but 200 or 503 */
+        public long getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %.2fs, %.0f req/s, p50 %d us, p99 %d us, max %d us, "
+                            + "%d solved, %d rejected, %d failed",
+                    requests, nanos / 1e9, getThroughput(), getLatencyMicros(50), getLatencyMicros(99),
+                    getLatencyMicros(100), solved, rejected, failed);
+        }
+    }
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 3) {
+            System.err.println("usage: LoadGenerator [<url>] [<concurrency>] [<requests>]");
+            System.exit(2);
+        }
+        URI base = URI.create(args.length >= 1 ? args[0] : "http://localhost:8080");
+        int concurrency = args.length >= 2 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length == 3 ? Integer.parseInt(args[2]) : 10_000;
+
+        List<int[][]> grids = loadInstances();
+        System.err.println("replaying " + grids.size() + " instances");
+        System.out.println(run(base, grids, concurrency, requests));
+    }
+
+    /**
+     * sends requests solve requests for the grids round robin from concurrency threads.
+     */
+    public static Report run(URI base, List<int[][]> grids, int concurrency, int requests) throws InterruptedException {
+        if (grids.isEmpty()) throw new IllegalArgumentException("no grids to replay");
+        URI solve = base.resolve("/solve");
+        String[] bodies = new String[grids.size()];
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = "{\"grid\":" + Arrays.deepToString(grids.get(i)).replace(" ", "") + "}";
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger answered = new AtomicInteger();
+        LongAdder solved = new LongAdder(), rejected = new LongAdder(), failed = new LongAdder();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < concurrency; t++) {
+                running.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        HttpRequest request = HttpRequest.newBuilder(solve)
+                                .POST(HttpRequest.BodyPublishers.ofString(bodies[i % bodies.length]))
+                                .header("Content-Type", "application/json")
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() == 503) {
+                                rejected.increment();
+                                continue;
+                            }
+                            latencies[answered.getAndIncrement()] = System.nanoTime() - sent;
+                            if (response.statusCode() != 200) failed.increment();
+                            else if (response.body().contains("\"status\":\"SOLVED\"")) solved.increment();
+                        } catch (IOException e) {
+                            failed.increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> thread : running) {
+                try {
+                    thread.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        long nanos = System.nanoTime() - start;
+
+        long[] answeredLatencies = Arrays.copyOf(latencies, answered.get());
+        Arrays.sort(answeredLatencies);
+        return new Report(requests, nanos, answeredLatencies, solved.sum(), rejected.sum(), failed.sum());
+    }
+
+    /**
+     * @return every grid of every instance set, empty cells are 0
+     */
+    public static List<int[][]> loadInstances() throws IOException {
+        List<int[][]> grids = new ArrayList<>();
+        for (String set : new String[]{"basic", "pruning", "var_selection", "large"}) {
+            String[] names = new File(INSTANCES_PATH + set).list();
+            if (names == null) continue;
+            Arrays.sort(names);
+            for (String name : names) {
+                try (PuzzleReader reader = PuzzleReader.open(Path.of(INSTANCES_PATH + set, name))) {
+                    for (int[][] grid = reader.read(); grid != null; grid = reader.read()) grids.add(grid);
+                }
+            }
+        }
+        return grids;
+    }
+}
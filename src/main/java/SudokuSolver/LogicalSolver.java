@@ -0,0 +1,267 @@
+package SudokuSolver;
+
+import java.util.*;
+
+/**
+ * Solves as much of a grid as possible without guessing.
+ * {@link #load(int[][])} checks the givens for duplicates in a single O(n*n) pass over row, column
+ * and subgrid bitmasks. {@link #propagate()} then applies naked singles, hidden singles and locked
+ * candidates (pointing and claiming) until none of them makes progress.
+ * Candidates are kept as a long per cell, so grids up to 64x64 are supported.
+ * Instances are not thread safe.
+ */
+public class LogicalSolver {
+
+    public enum Outcome {
+        /** every cell is filled */
+        SOLVED,
+        /** no rule makes progress anymore, the remaining cells need a search */
+        STUCK,
+        /** some cell or unit cannot be filled, the grid has no solution */
+        CONTRADICTION
+    }
+
+    public static final int MAX_SIZE = 64;
+
+    private final int n;
+    private final int subgridSize;
+    private final long all;             // mask with a bit for every value
+    private final int[] rowOf, colOf, subgridOf;
+    private final int[][] units;        // the cells of every row, column and subgrid
+    private final long[] used;          // values placed in every unit, only used while loading
+    private final long[] candidates;    // 0 for filled cells
+    private final int[] values;         // 0 if the cell is empty, otherwise its value
+    private int filled;
+
+    public LogicalSolver(int n) {
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        if (n <= 0 || subgridSize * subgridSize != n) {
+            throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        }
+        if (n > MAX_SIZE) {
+            throw new IllegalArgumentException("grid size " + n + " is larger than " + MAX_SIZE);
+        }
+        this.n = n;
+        this.subgridSize = subgridSize;
+        this.all = n == 64 ? -1L : (1L << n) - 1;
+
+        rowOf = new int[n*n];
+        colOf = new int[n*n];
+        subgridOf = new int[n*n];
+        units = new int[3*n][n];
+        int[] unitSize = new int[3*n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int cell = (row*n) + col;
+                int subgrid = ((row/subgridSize)*subgridSize) + (col/subgridSize);
+                rowOf[cell] = row;
+                colOf[cell] = col;
+                subgridOf[cell] = subgrid;
+                units[row][unitSize[row]++] = cell;
+                units[n + col][unitSize[n + col]++] = cell;
+                units[2*n + subgrid][unitSize[2*n + subgrid]++] = cell;
+            }
+        }
+        used = new long[3*n];
+        candidates = new long[n*n];
+        values = new int[n*n];
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * loads the givens of grid and computes the candidates of every empty cell, cells <= 0 are empty.
+     * @return false if a value is given twice in a row, column or subgrid
+     */
+    public boolean load(int[][] grid) {
+        Arrays.fill(used, 0);
+        filled = 0;
+        for (int cell = 0; cell < n*n; cell++) {
+            int val = grid[rowOf[cell]][colOf[cell]];
+            values[cell] = Math.max(val, 0);
+            if (val <= 0) continue;
+            long bit = 1L << (val - 1);
+            int row = rowOf[cell], col = n + colOf[cell], subgrid = 2*n + subgridOf[cell];
+            if (((used[row] | used[col] | used[subgrid]) & bit) != 0) return false;
+            used[row] |= bit;
+            used[col] |= bit;
+            used[subgrid] |= bit;
+            filled++;
+        }
+        for (int cell = 0; cell < n*n; cell++) {
+            candidates[cell] = values[cell] != 0 ? 0
+                    : all & ~(used[rowOf[cell]] | used[n + colOf[cell]] | used[2*n + subgridOf[cell]]);
+        }
+        return true;
+    }
+
+    /**
+     * applies the logical rules to the loaded grid until none of them makes progress.
+     */
+    public Outcome propagate() {
+        return propagate(true);
+    }
+
+    /**
+     * @param lockedCandidates whether to apply locked candidates, otherwise only singles are used
+     */
+    public Outcome propagate(boolean lockedCandidates) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // naked singles: cells with a single candidate left
+            for (int cell = 0; cell < n*n; cell++) {
+                if (values[cell] != 0) continue;
+                long cellCandidates = candidates[cell];
+                if (cellCandidates == 0) return Outcome.CONTRADICTION;
+                if ((cellCandidates & (cellCandidates - 1)) == 0) {
+                    assign(cell, Long.numberOfTrailingZeros(cellCandidates));
+                    changed = true;
+                }
+            }
+            if (filled == n*n) return Outcome.SOLVED;
+
+            // hidden singles: values that fit in only one cell of a row, column or subgrid
+            for (int[] unit : units) {
+                long once = 0, twice = 0, placed = 0;
+                for (int cell : unit) {
+                    if (values[cell] != 0) {
+                        placed |= 1L << (values[cell] - 1);
+                        continue;
+                    }
+                    twice |= once & candidates[cell];
+                    once |= candidates[cell];
+                }
+                if ((all & ~placed & ~once) != 0) return Outcome.CONTRADICTION;
+
+                long hidden = once & ~twice;
+                while (hidden != 0) {
+                    long bit = hidden & -hidden;
+                    hidden &= hidden - 1;
+                    for (int cell : unit) {
+                        if (values[cell] != 0 || (candidates[cell] & bit) == 0) continue;
+                        assign(cell, Long.numberOfTrailingZeros(bit));
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+            // only look for locked candidates once the singles are exhausted, they are the most expensive rule
+            if (!changed && lockedCandidates) changed = lockCandidates();
+        }
+        return filled == n*n ? Outcome.SOLVED : Outcome.STUCK;
+    }
+
+    /**
+     * writes the filled cells into grid, empty cells become 0.
+     */
+    public void writeTo(int[][] grid) {
+        for (int cell = 0; cell < n*n; cell++) {
+            grid[rowOf[cell]][colOf[cell]] = values[cell];
+        }
+    }
+
+    /**
+     * @return the number of filled cells, givens included
+     */
+    public int getFilled() {
+        return filled;
+    }
+
+    private void assign(int cell, int val) {
+        long bit = 1L << val;
+        values[cell] = val + 1;
+        candidates[cell] = 0;
+        filled++;
+        for (int peer : units[rowOf[cell]]) candidates[peer] &= ~bit;
+        for (int peer : units[n + colOf[cell]]) candidates[peer] &= ~bit;
+        for (int peer : units[2*n + subgridOf[cell]]) candidates[peer] &= ~bit;
+    }
+
+    /**
+     * locked candidates: a value that is confined to one line within a subgrid can be removed from the
+     * rest of that line (pointing), a value confined to one subgrid within a line can be removed from
+     * the rest of that subgrid (claiming).
+     * @return whether any candidate was removed
+     */
+    private boolean lockCandidates() {
+        int s = subgridSize;
+        boolean changed = false;
+        for (int subgrid = 0; subgrid < n; subgrid++) {
+            int row0 = (subgrid / s) * s, col0 = (subgrid % s) * s;
+            // pointing along the rows and columns of the subgrid
+            long rowOnce = 0, rowTwice = 0, colOnce = 0, colTwice = 0;
+            for (int i = 0; i < s; i++) {
+                long rowSegment = candidatesIn(row0 + i, row0 + i + 1, col0, col0 + s);
+                rowTwice |= rowOnce & rowSegment;
+                rowOnce |= rowSegment;
+                long colSegment = candidatesIn(row0, row0 + s, col0 + i, col0 + i + 1);
+                colTwice |= colOnce & colSegment;
+                colOnce |= colSegment;
+            }
+            long rowLocked = rowOnce & ~rowTwice, colLocked = colOnce & ~colTwice;
+            for (int i = 0; i < s && (rowLocked | colLocked) != 0; i++) {
+                long locked = rowLocked & candidatesIn(row0 + i, row0 + i + 1, col0, col0 + s);
+                changed |= eliminate(row0 + i, row0 + i + 1, 0, n, locked, col0, col0 + s, true);
+                locked = colLocked & candidatesIn(row0, row0 + s, col0 + i, col0 + i + 1);
+                changed |= eliminate(0, n, col0 + i, col0 + i + 1, locked, row0, row0 + s, false);
+            }
+        }
+        for (int line = 0; line < n; line++) {
+            // claiming along the subgrids a row or column crosses
+            long rowOnce = 0, rowTwice = 0, colOnce = 0, colTwice = 0;
+            for (int j = 0; j < s; j++) {
+                long rowSegment = candidatesIn(line, line + 1, j*s, j*s + s);
+                rowTwice |= rowOnce & rowSegment;
+                rowOnce |= rowSegment;
+                long colSegment = candidatesIn(j*s, j*s + s, line, line + 1);
+                colTwice |= colOnce & colSegment;
+                colOnce |= colSegment;
+            }
+            long rowLocked = rowOnce & ~rowTwice, colLocked = colOnce & ~colTwice;
+            int lineSubgrid0 = (line / s) * s;
+            for (int j = 0; j < s && (rowLocked | colLocked) != 0; j++) {
+                long locked = rowLocked & candidatesIn(line, line + 1, j*s, j*s + s);
+                changed |= eliminate(lineSubgrid0, lineSubgrid0 + s, j*s, j*s + s, locked, line, line + 1, false);
+                locked = colLocked & candidatesIn(j*s, j*s + s, line, line + 1);
+                changed |= eliminate(j*s, j*s + s, lineSubgrid0, lineSubgrid0 + s, locked, line, line + 1, true);
+            }
+        }
+        return changed;
+    }
+
+    // the union of the candidates in rows [row0, row1) x cols [col0, col1)
+    private long candidatesIn(int row0, int row1, int col0, int col1) {
+        long union = 0;
+        for (int row = row0; row < row1; row++) {
+            for (int col = col0; col < col1; col++) {
+                union |= candidates[(row*n) + col];
+            }
+        }
+        return union;
+    }
+
+    /**
+     * removes mask from the candidates in rows [row0, row1) x cols [col0, col1), except for the cells
+     * whose col (or row if skipCols is false) lies in [skip0, skip1).
+     * @return whether any candidate was removed
+     */
+    private boolean eliminate(int row0, int row1, int col0, int col1, long mask, int skip0, int skip1, boolean skipCols) {
+        if (mask == 0) return false;
+        boolean changed = false;
+        for (int row = row0; row < row1; row++) {
+            for (int col = col0; col < col1; col++) {
+                int skip = skipCols ? col : row;
+                if (skip >= skip0 && skip < skip1) continue;
+                int cell = (row*n) + col;
+                if ((candidates[cell] & mask) == 0) continue;
+                candidates[cell] &= ~mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,103 @@
+package SudokuSolver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flat packed representation of many boards in one byte[] or ByteBuffer, heap or direct.
+ * Cells are stored in row major order, empty cells are 0. A board of size n takes
+ * {@link #boardBytes(int, Format)} bytes and board i starts at i * boardBytes, so millions of boards can
+ * share one buffer without an object per board or per row.
+ * {@link Solver#solveInPlace(ByteBuffer, int, Format)} reads the givens from and writes the solution into
+ * such a buffer. Only absolute get/put operations are used, the position and limit of a buffer are never touched.
+ */
+public class PackedBoards {
+
+    public enum Format {
+        /** one byte per cell, for grids up to {@link ArraySudokuDLX#MAX_SIZE} */
+        BYTE,
+        /** two cells per byte, low nibble first, for grids up to 9x9 */
+        NIBBLE;
+
+        /**
+         * @throws IllegalArgumentException if values of grids of size n do not fit in this format
+         */
+        public void checkSize(int n) {
+            if (this == NIBBLE && n > 15) {
+                throw new IllegalArgumentException("grid size " + n + " does not fit in nibbles");
+            }
+            if (n > 255) {
+                throw new IllegalArgumentException("grid size " + n + " does not fit in bytes");
+            }
+        }
+    }
+
+    private PackedBoards() {
+    }
+
+    /**
+     * @return the number of bytes a board of size n takes
+     */
+    public static int boardBytes(int n, Format format) {
+        return format == Format.BYTE ? n*n : (n*n + 1) / 2;
+    }
+
+    /**
+     * allocates a buffer for the given number of boards of size n, every cell empty.
+     */
+    public static ByteBuffer allocate(int boards, int n, Format format, boolean direct) {
+        format.checkSize(n);
+        int bytes = Math.multiplyExact(boards, boardBytes(n, format));
+        return direct ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+
+    /**
+     * @return the value of cell (row*n + col) of the board starting at offset
+     */
+    public static int get(ByteBuffer boards, int offset, int cell, Format format) {
+        if (format == Format.BYTE) return boards.get(offset + cell) & 0xFF;
+        int packed = boards.get(offset + (cell >> 1));
+        return (cell & 1) == 0 ? packed & 0xF : (packed >> 4) & 0xF;
+    }
+
+    public static void set(ByteBuffer boards, int offset, int cell, Format format, int value) {
+        if (format == Format.BYTE) {
+            boards.put(offset + cell, (byte) value);
+            return;
+        }
+        int index = offset + (cell >> 1);
+        int packed = boards.get(index);
+        packed = (cell & 1) == 0 ? (packed & 0xF0) | value : (packed & 0x0F) | (value << 4);
+        boards.put(index, (byte) packed);
+    }
+
+    /**
+     * writes grid into the board starting at offset, cells <= 0 become empty.
+     */
+    public static void pack(int[][] grid, ByteBuffer boards, int offset, Format format) {
+        int n = Grids.validate(grid);
+        format.checkSize(n);
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                set(boards, offset, (row*n) + col, format, Math.max(grid[row][col], 0));
+            }
+        }
+    }
+
+    /**
+     * reads the board of size n starting at offset into grid.
+     */
+    public static void unpack(ByteBuffer boards, int offset, Format format, int[][] grid) {
+        int n = grid.length;
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                grid[row][col] = get(boards, offset, (row*n) + col, format);
+            }
+        }
+    }
+
+    public static int[][] unpack(ByteBuffer boards, int offset, int n, Format format) {
+        int[][] grid = new int[n][n];
+        unpack(boards, offset, format, grid);
+        return grid;
+    }
+}
@@ -0,0 +1,152 @@
+package SudokuSolver;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solver that only hands the hard puzzles to dancing links.
+ * Every grid passes through three stages:
+ * <ol>
+ *     <li>a bitmask check of the givens that rejects grids with duplicate values in O(n*n)</li>
+ *     <li>the logical rules of {@link LogicalSolver}, which settle most easy puzzles without any search</li>
+ *     <li>an {@link ArraySudokuDLX} search of the cells the rules could not fill</li>
+ * </ol>
+ * The number of grids every stage resolved is counted in {@link Counters}, by default shared by all
+ * pipelines. Grids larger than {@link LogicalSolver#MAX_SIZE} go straight to the search.
+ * Instances are not thread safe, use {@link #forSize(int)} to get one per thread.
+ */
+public class PresolvePipeline implements Solver {
+
+    /**
+     * how many grids each stage resolved, safe to update from many pipelines at once.
+     */
+    public static class Counters {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder solvedByLogic = new LongAdder();
+        private final LongAdder refutedByLogic = new LongAdder();
+        private final LongAdder searched = new LongAdder();
+
+        /** @return the number of grids handed to the pipeline */
+        public long getReceived() {
+            return received.sum();
+        }
+
+        /** @return the number of grids rejected for duplicate givens */
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        /** @return the number of grids solved by the logical rules alone */
+        public long getSolvedByLogic() {
+            return solvedByLogic.sum();
+        }
+
+        /** @return the number of grids the logical rules proved unsolvable */
+        public long getRefutedByLogic() {
+            return refutedByLogic.sum();
+        }
+
+        /** @return the number of grids that needed a search */
+        public long getSearched() {
+            return searched.sum();
+        }
+
+        public void reset() {
+            received.reset();
+            rejected.reset();
+            solvedByLogic.reset();
+            refutedByLogic.reset();
+            searched.reset();
+        }
+
+        @Override
+        public String toString() {
+            return "received=" + getReceived() + ", rejected=" + getRejected() + ", solvedByLogic=" + getSolvedByLogic()
+                    + ", refutedByLogic=" + getRefutedByLogic() + ", searched=" + getSearched();
+        }
+    }
+
+    private static final Counters sharedCounters = new Counters();
+
+    private static final ThreadLocal<Map<Integer, PresolvePipeline>> instances = ThreadLocal.withInitial(HashMap::new);
+
+    private final int n;
+    private final LogicalSolver logic;  // null for grids too large for the logical rules
+    private final ArraySudokuDLX search;
+    private final int[][] residual;     // the grid after the logical rules, handed to the search
+    private final Counters counters;
+
+    public PresolvePipeline(int n) {
+        this(n, sharedCounters);
+    }
+
+    public PresolvePipeline(int n, Counters counters) {
+        this.n = n;
+        this.search = new ArraySudokuDLX(n);
+        this.logic = n <= LogicalSolver.MAX_SIZE ? new LogicalSolver(n) : null;
+        this.residual = new int[n][n];
+        this.counters = counters;
+    }
+
+    /**
+     * @param n the side length of the grid
+     * @return the instance cached for the calling thread, created on first use
+     */
+    public static PresolvePipeline forSize(int n) {
+        return instances.get().computeIfAbsent(n, PresolvePipeline::new);
+    }
+
+    /**
+     * @return the counters of the pipelines created without counters of their own
+     */
+    public static Counters sharedCounters() {
+        return sharedCounters;
+    }
+
+    public Counters getCounters() {
+        return counters;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution) {
+        return solve(grid, solution, (SolveBudget) null);
+    }
+
+    /**
+     * runs the pipeline, only the search stage is limited by the budget.
+     */
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        if (Grids.validate(grid) != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        counters.received.increment();
+        int[][] remaining = grid;
+        if (logic != null) {
+            if (!logic.load(grid)) {
+                counters.rejected.increment();
+                return false;
+            }
+            switch (logic.propagate()) {
+                case SOLVED:
+                    counters.solvedByLogic.increment();
+                    logic.writeTo(solution);
+                    return true;
+                case CONTRADICTION:
+                    counters.refutedByLogic.increment();
+                    return false;
+                default:
+                    logic.writeTo(residual);
+                    remaining = residual;
+            }
+        }
+        counters.searched.increment();
+        return budget == null ? search.solve(remaining, solution) : search.solve(remaining, solution, budget);
+    }
+}
@@ -0,0 +1,266 @@
+package SudokuSolver;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates puzzles with a unique solution and grades their difficulty.
+ * A full grid is made by filling the subgrids on the diagonal, which never constrain each other, with
+ * random permutations and completing the grid with {@link ArraySudokuDLX}. Givens are then removed in
+ * random order as long as the solution stays unique. As the grid before a removal has a unique solution,
+ * it is enough to check with {@link BitmaskSudokuSolver#hasSolutionWithout} that no other value fits the
+ * emptied cell, which is much cheaper than counting solutions.
+ * Difficulty is graded by the logical rules of {@link LogicalSolver} a puzzle needs, and for puzzles that
+ * need a search by how much dancing links backtracks on it.
+ * Puzzle i of a batch is generated from its own seed derived from the batch seed, so a batch is
+ * reproducible no matter how many threads generate it.
+ *
+ * usage: PuzzleGenerator <count> [<seed>] [<output>]
+ * Writes one puzzle per line, to stdout if no output is given or it is -.
+ */
+public class PuzzleGenerator implements AutoCloseable {
+
+    public enum Difficulty {
+        /** solved by naked and hidden singles alone */
+        EASY,
+        /** needs locked candidates besides the singles */
+        MEDIUM,
+        /** needs a search that backtracks at most n times */
+        HARD,
+        /** needs a search that backtracks more than n times */
+        EXPERT
+    }
+
+    public static class Puzzle {
+        private final int[][] grid;
+        private final int[][] solution;
+        private final Difficulty difficulty;
+        private final long seed;
+        private final long searchNodes;
+        private final long backtracks;
+
+        Puzzle(int[][] grid, int[][] solution, Difficulty difficulty, long seed, long searchNodes, long backtracks) {
+            this.grid = grid;
+            this.solution = solution;
+            this.difficulty = difficulty;
+            this.seed = seed;
+            this.searchNodes = searchNodes;
+            this.backtracks = backtracks;
+        }
+
+        /** @return the puzzle, empty cells are 0 */
+        public int[][] getGrid() {
+            return grid;
+        }
+
+        public int[][] getSolution() {
+            return solution;
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+
+        /** @return the seed this puzzle was generated from, {@link #generate(long)} recreates it */
+        public long getSeed() {
+            return seed;
+        }
+
+        /** @return the number of search nodes dancing links needs for this puzzle */
+        public long getSearchNodes() {
+            return searchNodes;
+        }
+
+        /** @return the number of backtracks dancing links needs for this puzzle */
+        public long getBacktracks() {
+            return backtracks;
+        }
+
+        public int getGivens() {
+            int givens = 0;
+            for (int[] row : grid) {
+                for (int val : row) {
+                    if (val > 0) givens++;
+                }
+            }
+            return givens;
+        }
+    }
+
+    // puzzles are split until a task generates at most this many
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private final int n;
+    private final int subgridSize;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<LogicalSolver> logic;
+
+    public PuzzleGenerator(int n) {
+        this(n, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param n the side length of the generated grids
+     * @param parallelism the number of worker threads
+     */
+    public PuzzleGenerator(int n, int parallelism) {
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        if (n <= 0 || subgridSize * subgridSize != n) {
+            throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        }
+        if (n > LogicalSolver.MAX_SIZE) {
+            throw new IllegalArgumentException("grid size " + n + " is larger than " + LogicalSolver.MAX_SIZE);
+        }
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive");
+        this.n = n;
+        this.subgridSize = subgridSize;
+        this.pool = new ForkJoinPool(parallelism);
+        this.logic = ThreadLocal.withInitial(() -> new LogicalSolver(n));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("usage: PuzzleGenerator <count> [<seed>] [<output>]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[0]);
+        long seed = args.length >= 2 ? Long.parseLong(args[1]) : System.nanoTime();
+        String output = args.length == 3 ? args[2] : "-";
+
+        long start = System.nanoTime();
+        List<Puzzle> puzzles;
+        try (PuzzleGenerator generator = new PuzzleGenerator(9)) {
+            puzzles = generator.generate(count, seed);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int[] difficulties = new int[Difficulty.values().length];
+        try (PuzzleWriter writer = output.equals("-")
+                ? new PuzzleWriter(new FileOutputStream(FileDescriptor.out).getChannel())
+                : PuzzleWriter.create(Path.of(output))) {
+            for (Puzzle puzzle : puzzles) {
+                writer.write(puzzle.getGrid());
+                difficulties[puzzle.getDifficulty().ordinal()]++;
+            }
+        }
+        System.err.printf("generated %d puzzles from seed %d in %.2fs (%.0f puzzles/s)%n",
+                count, seed, seconds, count / seconds);
+        for (Difficulty difficulty : Difficulty.values()) {
+            System.err.printf("%-6s %d%n", difficulty, difficulties[difficulty.ordinal()]);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * generates count puzzles in parallel, puzzle i is generated from its own seed derived from seed and i.
+     */
+    public List<Puzzle> generate(int count, long seed) {
+        Puzzle[] puzzles = new Puzzle[count];
+        pool.invoke(new GenerateRange(this, seed, puzzles, 0, count));
+        return Arrays.asList(puzzles);
+    }
+
+    /**
+     * generates a single puzzle on the calling thread, the same seed always gives the same puzzle.
+     */
+    public Puzzle generate(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ArraySudokuDLX dlx = ArraySudokuDLX.forSize(n);
+        BitmaskSudokuSolver bitmask = BitmaskSudokuSolver.forSize(n);
+        int[][] solution = fullGrid(random, dlx);
+        int[][] grid = new int[n][];
+        for (int row = 0; row < n; row++) grid[row] = solution[row].clone();
+
+        int[] cells = new int[n*n];
+        for (int i = 0; i < cells.length; i++) {
+            int j = random.nextInt(i + 1);
+            cells[i] = cells[j];
+            cells[j] = i;
+        }
+        for (int cell : cells) {
+            int row = cell / n, col = cell % n;
+            int val = grid[row][col];
+            grid[row][col] = 0;
+            // the grid had a unique solution with val, so it stays unique unless another value fits
+            if (bitmask.hasSolutionWithout(grid, row, col, val)) grid[row][col] = val;
+        }
+
+        SolveStats stats = new SolveStats();
+        dlx.solve(grid, new int[n][n], stats);
+        return new Puzzle(grid, solution, grade(grid, stats), seed, stats.getNodes(), stats.getBacktracks());
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // the seed of puzzle i of a batch
+    private static long seedOf(long seed, int i) {
+        return seed + (i * 0x9E3779B97F4A7C15L);
+    }
+
+    private int[][] fullGrid(SplittableRandom random, ArraySudokuDLX dlx) {
+        int[][] grid = new int[n][n];
+        int[][] solution = new int[n][n];
+        do {
+            for (int subgrid = 0; subgrid < subgridSize; subgrid++) {
+                int[] values = new int[n];
+                for (int i = 0; i < n; i++) {
+                    int j = random.nextInt(i + 1);
+                    values[i] = values[j];
+                    values[j] = i + 1;
+                }
+                int offset = subgrid*subgridSize;
+                for (int i = 0; i < n; i++) {
+                    grid[offset + (i / subgridSize)][offset + (i % subgridSize)] = values[i];
+                }
+            }
+        } while (!dlx.solve(grid, solution));
+        return solution;
+    }
+
+    private Difficulty grade(int[][] grid, SolveStats stats) {
+        LogicalSolver logic = this.logic.get();
+        logic.load(grid);
+        if (logic.propagate(false) == LogicalSolver.Outcome.SOLVED) return Difficulty.EASY;
+        logic.load(grid);
+        if (logic.propagate(true) == LogicalSolver.Outcome.SOLVED) return Difficulty.MEDIUM;
+        return stats.getBacktracks() <= n ? Difficulty.HARD : Difficulty.EXPERT;
+    }
+
+    private static class GenerateRange extends RecursiveAction {
+        private final PuzzleGenerator generator;
+        private final long seed;
+        private final Puzzle[] puzzles;
+        private final int from, to;
+
+        GenerateRange(PuzzleGenerator generator, long seed, Puzzle[] puzzles, int from, int to) {
+            this.generator = generator;
+            this.seed = seed;
+            this.puzzles = puzzles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    puzzles[i] = generator.generate(seedOf(seed, i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GenerateRange(generator, seed, puzzles, from, mid), new GenerateRange(generator, seed, puzzles, mid, to));
+            }
+        }
+    }
+}
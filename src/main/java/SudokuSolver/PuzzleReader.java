@@ -0,0 +1,191 @@
+package SudokuSolver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Streams puzzles from a channel through a single fixed size buffer, so files of any size are read in constant memory.
+ * Two formats are recognized, and may be mixed in one file:
+ * - one puzzle per line, a character per cell: '1'-'9', then 'A'-'Z' for 10-35, '.' or '0' for an empty cell.
+ *   The common 81 character 9x9 format is the most prominent example.
+ * - the format of the test instances: the subgrid size, a number that is ignored,
+ *   then every cell as a whitespace separated integer, where values <= 0 are empty.
+ * Empty cells are returned as 0.
+ */
+public class PuzzleReader implements Iterator<int[][]>, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    // the shortest line format puzzle is a 4x4 grid, header format tokens are never this long
+    private static final int MIN_LINE_LENGTH = 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean eof = false;
+    private int[] token = new int[128];     // characters of the token being parsed
+    private int[][] next;                   // the puzzle returned by the next call to next()
+    private long puzzles = 0;               // number of puzzles read, for error messages
+
+    public PuzzleReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();  // start empty, the first read fills it
+    }
+
+    public static PuzzleReader open(Path path) throws IOException {
+        return new PuzzleReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * @return the next puzzle, or null if the end of the input is reached
+     */
+    public int[][] read() throws IOException {
+        if (next != null) {
+            int[][] puzzle = next;
+            next = null;
+            return puzzle;
+        }
+        return parsePuzzle();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        try {
+            next = parsePuzzle();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return next != null;
+    }
+
+    @Override
+    public int[][] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        int[][] puzzle = next;
+        next = null;
+        return puzzle;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int[][] parsePuzzle() throws IOException {
+        int length = readToken();
+        if (length == 0) return null;
+        puzzles++;
+        return length >= MIN_LINE_LENGTH ? parseLine(length) : parseHeaderAndGrid(length);
+    }
+
+    private int[][] parseLine(int length) throws IOException {
+        int n = (int) Math.round(Math.sqrt(length));
+        if (n*n != length || !isSquare(n)) {
+            throw malformed("a line of " + length + " cells is not a sudoku grid");
+        }
+
+        int[][] grid = new int[n][n];
+        for (int i = 0; i < length; i++) {
+            int c = token[i];
+            int val;
+            if (c == '.' || c == '0') val = 0;
+            else if (c >= '1' && c <= '9') val = c - '0';
+            else if (c >= 'A' && c <= 'Z') val = c - 'A' + 10;
+            else if (c >= 'a' && c <= 'z') val = c - 'a' + 10;
+            else throw malformed("unexpected character '" + (char) c + "'");
+            if (val > n) throw malformed("value " + val + " does not fit in a grid of size " + n);
+            grid[i / n][i % n] = val;
+        }
+        return grid;
+    }
+
+    private int[][] parseHeaderAndGrid(int length) throws IOException {
+        int subgridSize = parseInt(length);
+        int n = subgridSize * subgridSize;
+        if (subgridSize <= 0) throw malformed("subgrid size " + subgridSize + " is not positive");
+        nextInt();  // skip random value
+
+        int[][] grid = new int[n][n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int val = nextInt();
+                if (val > n) throw malformed("value " + val + " does not fit in a grid of size " + n);
+                grid[row][col] = Math.max(val, 0);
+            }
+        }
+        return grid;
+    }
+
+    private int nextInt() throws IOException {
+        int length = readToken();
+        if (length == 0) throw malformed("unexpected end of input");
+        return parseInt(length);
+    }
+
+    private int parseInt(int length) throws IOException {
+        int i = 0;
+        boolean negative = token[0] == '-';
+        if (negative || token[0] == '+') i++;
+        if (i == length) throw malformed("expected a number");
+        int val = 0;
+        for (; i < length; i++) {
+            int c = token[i];
+            if (c < '0' || c > '9') throw malformed("expected a number but found '" + (char) c + "'");
+            val = (val * 10) + (c - '0');
+        }
+        return negative ? -val : val;
+    }
+
+    /**
+     * reads the next whitespace separated token into the token buffer.
+     * @return the length of the token, 0 at the end of the input
+     */
+    private int readToken() throws IOException {
+        int c = readByte();
+        while (c != -1 && isWhitespace(c)) c = readByte();
+
+        int length = 0;
+        while (c != -1 && !isWhitespace(c)) {
+            if (length == token.length) token = Arrays.copyOf(token, 2*length);
+            token[length++] = c;
+            c = readByte();
+        }
+        return length;
+    }
+
+    private int readByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            if (eof) return -1;
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read == -1) {
+                eof = true;
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isSquare(int n) {
+        int root = (int) Math.round(Math.sqrt(n));
+        return root * root == n;
+    }
+
+    private IOException malformed(String message) {
+        return new IOException("malformed puzzle #" + puzzles + ": " + message);
+    }
+}
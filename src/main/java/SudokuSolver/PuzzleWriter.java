@@ -0,0 +1,73 @@
+package SudokuSolver;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes grids one per line in the line format understood by {@link PuzzleReader},
+ * through a single fixed size buffer.
+ * A null grid (no solution) is written as an empty line, so output lines stay aligned with the input puzzles.
+ */
+public class PuzzleWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public PuzzleWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static PuzzleWriter create(Path path) throws IOException {
+        return new PuzzleWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public void write(int[][] grid) throws IOException {
+        if (grid != null) {
+            for (int[] row : grid) {
+                for (int val : row) {
+                    put(toChar(val));
+                }
+            }
+        }
+        put('\n');
+    }
+
+    private static int toChar(int val) {
+        if (val <= 0) return '.';
+        if (val <= 9) return '0' + val;
+        if (val <= 35) return 'A' + val - 10;
+        throw new IllegalArgumentException("value " + val + " cannot be written as a single character");
+    }
+
+    private void put(int c) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put((byte) c);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
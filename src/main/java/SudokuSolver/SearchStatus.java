@@ -0,0 +1,14 @@
+package SudokuSolver;
+
+/**
+ * The outcome of a resumable search step, see {@link ArraySudokuDLX#continueSearch(long)} and
+ * {@link ExactCover#continueSearch(long)}.
+ */
+public enum SearchStatus {
+    /** a solution was found, continuing the search looks for the next one */
+    FOUND,
+    /** there are no (more) solutions */
+    EXHAUSTED,
+    /** the node budget ran out, continuing the search resumes where it stopped */
+    PAUSED
+}
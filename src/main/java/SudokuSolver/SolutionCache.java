@@ -0,0 +1,300 @@
+package SudokuSolver;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of solutions in front of the solvers, shared by any number of threads.
+ * Grids are keyed by a canonical form under the symmetries of sudoku, so a puzzle that only differs
+ * from a cached one by transposition, permuted bands/stacks, permuted rows/columns within them or
+ * relabeled digits is answered from the cache through the inverse transform.
+ * The canonical form is partial: bands, stacks, rows and columns are ordered by invariants of their
+ * givens and ties keep their original order, so some equivalent puzzles still get different keys.
+ * That only costs a cache miss, the mapped back solution is always a solution of the given grid.
+ * Unsolvable grids are cached too. The least recently used entry is evicted once the cache is full.
+ */
+public class SolutionCache {
+
+    // cached for grids without a solution
+    private static final byte[] NO_SOLUTION = new byte[0];
+
+    private final int capacity;
+    private final Solver.Engine engine;
+    private final Map<Key, byte[]> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SolutionCache(int capacity) {
+        this(capacity, Solver.Engine.ARRAY_DLX);
+    }
+
+    /**
+     * @param capacity the maximum number of cached grids
+     * @param engine the engine that solves the grids that are not cached yet
+     */
+    public SolutionCache(int capacity, Solver.Engine engine) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.engine = engine;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                if (size() <= SolutionCache.this.capacity) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the solved grid, or null if the grid has no solution
+     */
+    public int[][] solve(int[][] grid) {
+        int[][] solution = new int[grid.length][grid.length];
+        return solve(grid, solution) ? solution : null;
+    }
+
+    /**
+     * solves the given grid into solution, from the cache if an equivalent grid was solved before.
+     * @return false if the grid has no solution
+     */
+    public boolean solve(int[][] grid, int[][] solution) {
+        Grids.validate(grid);
+        Transform transform = Transform.canonicalize(grid);
+        Key key = new Key(transform.forward(grid));
+
+        byte[] cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            if (cached == NO_SOLUTION) return false;
+            transform.backward(cached, solution);
+            return true;
+        }
+
+        misses.increment();
+        boolean solved = Solver.forSize(grid.length, engine).solve(grid, solution);
+        byte[] canonical = solved ? transform.forward(solution) : NO_SOLUTION;
+        synchronized (entries) {
+            entries.put(key, canonical);
+        }
+        return solved;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the share of lookups answered from the cache, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hits = getHits(), lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    // a canonical grid, one byte per cell
+    private static final class Key {
+        private final byte[] cells;
+        private final int hash;
+
+        Key(byte[] cells) {
+            this.cells = cells;
+            this.hash = Arrays.hashCode(cells);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(cells, ((Key) other).cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * a symmetry of sudoku: an optional transposition, then a permutation of the rows and columns
+     * that keeps bands and stacks together, then a relabeling of the digits.
+     * Canonical cell (i, j) is the (transposed) original cell (rows[i], cols[j]).
+     */
+    static final class Transform {
+        final int n;
+        final boolean transposed;
+        final int[] rows, cols;
+        final int[] relabel;    // original value -> canonical value, index 0 stays 0 for empty cells
+        final int[] restore;    // canonical value -> original value
+
+        private Transform(int n, boolean transposed, int[] rows, int[] cols, int[] relabel) {
+            this.n = n;
+            this.transposed = transposed;
+            this.rows = rows;
+            this.cols = cols;
+            this.relabel = relabel;
+            this.restore = new int[n + 1];
+            for (int val = 1; val <= n; val++) restore[relabel[val]] = val;
+        }
+
+        /**
+         * finds the transform that maps grid to its canonical form, trying both orientations.
+         */
+        static Transform canonicalize(int[][] grid) {
+            Transform straight = orient(grid, false);
+            Transform transposed = orient(grid, true);
+            return Arrays.compare(straight.forward(grid), transposed.forward(grid)) <= 0 ? straight : transposed;
+        }
+
+        // the canonical grid of grid as one byte per cell in row major order, empty cells are 0
+        byte[] forward(int[][] grid) {
+            byte[] cells = new byte[n*n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    cells[(i*n) + j] = (byte) relabel[Math.max(valueAt(grid, transposed, rows[i], cols[j]), 0)];
+                }
+            }
+            return cells;
+        }
+
+        // maps a canonical grid back onto the original orientation, positions and digits
+        void backward(byte[] cells, int[][] grid) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    int val = restore[cells[(i*n) + j]];
+                    if (transposed) grid[cols[j]][rows[i]] = val;
+                    else grid[rows[i]][cols[j]] = val;
+                }
+            }
+        }
+
+        private static int valueAt(int[][] grid, boolean transposed, int row, int col) {
+            return transposed ? grid[col][row] : grid[row][col];
+        }
+
+        private static Transform orient(int[][] grid, boolean transposed) {
+            int n = grid.length;
+            int subgridSize = (int) Math.round(Math.sqrt(n));
+            int[] rowGivens = new int[n], colGivens = new int[n];
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    if (valueAt(grid, transposed, row, col) <= 0) continue;
+                    rowGivens[row]++;
+                    colGivens[col]++;
+                }
+            }
+
+            // a line is described by its number of givens and the given counts of the lines crossing them,
+            // both stay the same under every permutation of the lines
+            long[] rowKeys = new long[n], colKeys = new long[n];
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    if (valueAt(grid, transposed, row, col) <= 0) continue;
+                    rowKeys[row] += (long) colGivens[col] * colGivens[col];
+                    colKeys[col] += (long) rowGivens[row] * rowGivens[row];
+                }
+            }
+            for (int line = 0; line < n; line++) {
+                rowKeys[line] += (long) rowGivens[line] << 40;
+                colKeys[line] += (long) colGivens[line] << 40;
+            }
+            // refine once with the keys of the crossing lines, which breaks most of the remaining ties
+            long[] rowRefined = new long[n], colRefined = new long[n];
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    if (valueAt(grid, transposed, row, col) <= 0) continue;
+                    rowRefined[row] += mix(colKeys[col]);
+                    colRefined[col] += mix(rowKeys[row]);
+                }
+            }
+            int[] rows = orderLines(rowKeys, rowRefined, subgridSize);
+            int[] cols = orderLines(colKeys, colRefined, subgridSize);
+
+            // digits are numbered in the order they first appear in the canonical grid
+            int[] relabel = new int[n + 1];
+            int next = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    int val = valueAt(grid, transposed, rows[i], cols[j]);
+                    if (val > 0 && relabel[val] == 0) relabel[val] = ++next;
+                }
+            }
+            for (int val = 1; val <= n; val++) {
+                if (relabel[val] == 0) relabel[val] = ++next;
+            }
+            return new Transform(n, transposed, rows, cols, relabel);
+        }
+
+        // spreads the bits of a key, so sums of mixed keys rarely collide
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 29);
+        }
+
+        // orders the lines within every band by key and refined key, then the bands by their ordered keys
+        private static int[] orderLines(long[] coarse, long[] refined, int subgridSize) {
+            int s = subgridSize;
+            long[] keys = new long[coarse.length];
+            // the coarse key stays the primary order, its top bits hold the number of givens
+            for (int line = 0; line < keys.length; line++) keys[line] = (coarse[line] << 12) ^ (refined[line] & 0xFFF);
+            int[][] bands = new int[s][s];
+            long[][] bandKeys = new long[s][s];
+            for (int band = 0; band < s; band++) {
+                for (int i = 0; i < s; i++) {
+                    int line = (band*s) + i;
+                    // insertion sort, stable so ties keep their original order
+                    int j = i;
+                    while (j > 0 && bandKeys[band][j - 1] > keys[line]) {
+                        bands[band][j] = bands[band][j - 1];
+                        bandKeys[band][j] = bandKeys[band][j - 1];
+                        j--;
+                    }
+                    bands[band][j] = line;
+                    bandKeys[band][j] = keys[line];
+                }
+            }
+
+            int[] bandOrder = new int[s];
+            for (int i = 0; i < s; i++) {
+                int j = i;
+                while (j > 0 && Arrays.compare(bandKeys[bandOrder[j - 1]], bandKeys[i]) > 0) {
+                    bandOrder[j] = bandOrder[j - 1];
+                    j--;
+                }
+                bandOrder[j] = i;
+            }
+
+            int[] lines = new int[s*s];
+            for (int i = 0; i < s; i++) {
+                System.arraycopy(bands[bandOrder[i]], 0, lines, i*s, s);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package SudokuSolver;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent store of solved grids in one memory-mapped file, so a corpus that is solved again after a
+ * restart is answered from disk instead of searched again.
+ * The file holds a header, an open-addressing index and an append-only area of records. A record holds the
+ * givens and the solution of one grid, one byte per cell, unsolvable grids are stored without a solution.
+ * Index slots hash the givens and point at their record. Opening a store maps the file, checks the header
+ * and scans the index once, so it takes time in proportion to the capacity but not to the record area.
+ *
+ * Any number of threads, and processes mapping the same file, can use a store at once. Appending reserves
+ * the record space with an atomic add on the tail, writes the record and only then publishes it with a
+ * compare-and-set of an empty index slot. A crash can at worst leave reserved space that is never published
+ * or a published record whose bytes did not reach the disk; every record carries a CRC32C checksum, records
+ * that do not match it are treated as missing and solved again. The tail and the record count in the header
+ * can lag behind the index after a crash as well, opening raises them to cover every published record.
+ * The capacity and the size of the record area are fixed when the file is created, puts into a full store
+ * are dropped. The index has at least twice as many slots as the capacity, so probing stays short.
+ */
+public class SolutionStore implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    public static final long DEFAULT_DATA_BYTES = 1L << 28;
+
+    private static final int MAGIC = 0x534F4C53;    // "SOLS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    // header fields
+    private static final int SLOTS_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int DATA_BYTES_OFFSET = 16;
+    private static final int TAIL_OFFSET = 24;      // bytes of the data area reserved so far
+    private static final int COUNT_OFFSET = 32;     // records published so far
+    // record fields, the checksum covers everything after it
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final byte SOLVED = 1, UNSOLVABLE = 2;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int capacity;
+    private final int dataStart;
+    private final long dataBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder corrupted = new LongAdder();
+
+    private SolutionStore(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) throw new IOException(file + " is not a solution store");
+        if (buffer.getInt(4) != VERSION) throw new IOException(file + " has unsupported version " + buffer.getInt(4));
+        this.slots = buffer.getInt(SLOTS_OFFSET);
+        this.capacity = buffer.getInt(CAPACITY_OFFSET);
+        this.dataBytes = buffer.getLong(DATA_BYTES_OFFSET);
+        this.dataStart = HEADER_BYTES + 8*slots;
+        if (Integer.bitCount(slots) != 1 || capacity <= 0 || capacity > slots/2
+                || dataStart + dataBytes != buffer.capacity()) {
+            throw new IOException(file + " has a damaged header");
+        }
+        recover();
+    }
+
+    /**
+     * opens an existing store.
+     */
+    public static SolutionStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new SolutionStore(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    /**
+     * opens the store, creating it if the file does not exist yet. An existing store keeps the capacity
+     * and the size it was created with.
+     * @param capacity the maximum number of records of a new store
+     * @param dataBytes the size of the record area of a new store, a 9x9 record takes 176 bytes
+     */
+    public static SolutionStore open(Path file, int capacity, long dataBytes) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        if (dataBytes <= 0) throw new IllegalArgumentException("dataBytes must be positive");
+        // keep the index at most half full
+        int slots = Integer.highestOneBit(capacity*2 - 1) << 1;
+        long size = HEADER_BYTES + 8L*slots + (dataBytes + 7 & ~7L);
+        if (capacity > 1 << 27 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("a store is limited to 2GB");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+            if (channel.size() == 0) {
+                // the file is sparse, the magic is written last so a half created store is never opened
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(4, VERSION).putInt(SLOTS_OFFSET, slots).putInt(CAPACITY_OFFSET, capacity).putLong(DATA_BYTES_OFFSET, size - HEADER_BYTES - 8L*slots);
+                channel.write(header, 0);
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+                channel.force(true);
+                channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, MAGIC), 0);
+                channel.force(true);
+            }
+            return new SolutionStore(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of published records, including unsolvable grids
+     */
+    public long size() {
+        return (long) LONGS.getVolatile(buffer, COUNT_OFFSET);
+    }
+
+    /**
+     * @return the maximum number of records
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the share of the record area that is reserved
+     */
+    public double getFill() {
+        return Math.min(1, (double) (long) LONGS.getVolatile(buffer, TAIL_OFFSET) / dataBytes);
+    }
+
+    /**
+     * looks the grid up without solving it.
+     * @return the stored result, SOLVED or UNSOLVABLE, or null if the grid is not stored
+     */
+    public SolveResult lookup(int[][] grid) {
+        int n = Grids.validate(grid);
+        byte[] givens = givens(grid);
+        int record = find(n, givens, hash(n, givens));
+        if (record < 0) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (buffer.get(record + 5) == UNSOLVABLE) return SolveResult.unsolved(SolveResult.Status.UNSOLVABLE);
+        int[][] solution = new int[n][n];
+        int cells = record + RECORD_HEADER_BYTES + n*n;
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) solution[row][col] = buffer.get(cells + (row*n) + col) & 0xFF;
+        }
+        return SolveResult.solved(solution);
+    }
+
+    /**
+     * appends the solution of the grid, null if the grid has no solution.
+     * @return false if the store is full, the result is dropped then
+     */
+    public boolean put(int[][] grid, int[][] solution) {
+        int n = Grids.validate(grid);
+        if (n > 255) throw new IllegalArgumentException("grid size " + n + " does not fit in bytes");
+        byte[] givens = givens(grid);
+        long hash = hash(n, givens);
+        int length = RECORD_HEADER_BYTES + (solution != null ? 2*n*n : n*n) + 7 & ~7;
+
+        // concurrent puts can overshoot the capacity by the number of threads, the index still has room for them
+        if (size() >= capacity) {
+            dropped.increment();
+            return false;
+        }
+        long offset = (long) LONGS.getAndAdd(buffer, TAIL_OFFSET, (long) length);
+        if (offset + length > dataBytes) {
+            dropped.increment();
+            return false;
+        }
+        int record = dataStart + (int) offset;
+        buffer.put(record + 4, (byte) n);
+        buffer.put(record + 5, solution != null ? SOLVED : UNSOLVABLE);
+        buffer.put(record + RECORD_HEADER_BYTES, givens);
+        if (solution != null) {
+            int cells = record + RECORD_HEADER_BYTES + n*n;
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) buffer.put(cells + (row*n) + col, (byte) solution[row][col]);
+            }
+        }
+        buffer.putInt(record, checksum(record, length));
+
+        // publish in the first empty slot, the compare-and-set orders the record writes before it
+        long entry = (hash & 0xFFFFFFFF00000000L) | (offset/8 + 1);
+        for (int i = 0; i < slots; i++) {
+            int slot = HEADER_BYTES + 8*(int) ((hash + i) & (slots - 1));
+            long current = (long) LONGS.getVolatile(buffer, slot);
+            if (current == 0 && LONGS.compareAndSet(buffer, slot, 0L, entry)) {
+                LONGS.getAndAdd(buffer, COUNT_OFFSET, 1L);
+                return true;
+            }
+            current = (long) LONGS.getVolatile(buffer, slot);
+            // another thread stored the same grid first, the reserved space stays unused
+            if ((current >>> 32) == (hash >>> 32) && matches(recordOf(current), n, givens)
+                    && isIntact(recordOf(current))) return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * solves the grid into solution with the default solver of its size, from the store if it was solved before.
+     * @return false if the grid has no solution
+     */
+    public boolean solve(int[][] grid, int[][] solution) {
+        return solve(grid, solution, Solver.forSize(Grids.validate(grid)));
+    }
+
+    /**
+     * solves the grid into solution with solver unless the store already holds it, new results are appended.
+     * @return false if the grid has no solution
+     */
+    public boolean solve(int[][] grid, int[][] solution, Solver solver) {
+        SolveResult stored = lookup(grid);
+        if (stored != null) {
+            if (stored.getStatus() != SolveResult.Status.SOLVED) return false;
+            for (int row = 0; row < grid.length; row++) {
+                System.arraycopy(stored.getSolution()[row], 0, solution[row], 0, grid.length);
+            }
+            return true;
+        }
+        boolean solved = solver.solve(grid, solution);
+        put(grid, solved ? solution : null);
+        return solved;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of results that were not stored because the store was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of records skipped because their checksum did not match
+     */
+    public long getCorrupted() {
+        return corrupted.sum();
+    }
+
+    /**
+     * writes the changes of the mapping to the disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * forces the changes to the disk, the mapping itself is released by the garbage collector.
+     */
+    @Override
+    public void close() {
+        force();
+    }
+
+    // the header counters are not ordered against the index and record pages on the disk, a stale tail would
+    // let new appends overwrite published records, so both are raised to what the index holds
+    private void recover() {
+        long count = 0, tail = 0;
+        for (int slot = HEADER_BYTES; slot < dataStart; slot += 8) {
+            long entry = (long) LONGS.getVolatile(buffer, slot);
+            if (entry == 0) continue;
+            count++;
+            int record = recordOf(entry);
+            if (record >= 0) tail = Math.max(tail, record - dataStart + recordLength(record));
+        }
+        raise(COUNT_OFFSET, count);
+        raise(TAIL_OFFSET, tail);
+    }
+
+    // other processes may append at the same time, the field only ever grows
+    private void raise(int field, long value) {
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(buffer, field);
+        } while (current < value && !LONGS.compareAndSet(buffer, field, current, value));
+    }
+
+    // the givens of the grid, one byte per cell, empty cells are 0
+    private static byte[] givens(int[][] grid) {
+        int n = grid.length;
+        byte[] givens = new byte[n*n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) givens[(row*n) + col] = (byte) Math.max(grid[row][col], 0);
+        }
+        return givens;
+    }
+
+    private static long hash(int n, byte[] givens) {
+        long hash = 0xCBF29CE484222325L ^ n;
+        for (byte given : givens) hash = (hash ^ given) * 0x100000001B3L;
+        return hash ^ (hash >>> 31);
+    }
+
+    // the position of the valid record of the givens, -1 if there is none
+    private int find(int n, byte[] givens, long hash) {
+        for (int i = 0; i < slots; i++) {
+            int slot = HEADER_BYTES + 8*(int) ((hash + i) & (slots - 1));
+            long entry = (long) LONGS.getVolatile(buffer, slot);
+            if (entry == 0) return -1;
+            if ((entry >>> 32) != (hash >>> 32)) continue;
+            int record = recordOf(entry);
+            if (!matches(record, n, givens)) continue;
+            if (isIntact(record)) return record;
+            corrupted.increment();
+        }
+        return -1;
+    }
+
+    // the position of the record an index entry points at, -1 if it points outside of the data area
+    private int recordOf(long entry) {
+        long offset = ((entry & 0xFFFFFFFFL) - 1)*8;
+        return offset + RECORD_HEADER_BYTES > dataBytes ? -1 : dataStart + (int) offset;
+    }
+
+    private int recordLength(int record) {
+        int n = buffer.get(record + 4) & 0xFF;
+        return RECORD_HEADER_BYTES + (buffer.get(record + 5) == SOLVED ? 2*n*n : n*n) + 7 & ~7;
+    }
+
+    private boolean matches(int record, int n, byte[] givens) {
+        if (record < 0 || (buffer.get(record + 4) & 0xFF) != n) return false;
+        if (record + recordLength(record) > buffer.capacity()) return false;
+        for (int cell = 0; cell < givens.length; cell++) {
+            if (buffer.get(record + RECORD_HEADER_BYTES + cell) != givens[cell]) return false;
+        }
+        return true;
+    }
+
+    private boolean isIntact(int record) {
+        return checksum(record, recordLength(record)) == buffer.getInt(record);
+    }
+
+    // the checksum of a record, covering everything after the checksum itself
+    private int checksum(int record, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(record + length).position(record + 4));
+        return (int) crc.getValue();
+    }
+}
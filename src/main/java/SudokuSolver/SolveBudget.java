@@ -0,0 +1,120 @@
+package SudokuSolver;
+
+import java.time.Duration;
+
+/**
+ * Limits how long a single solve may run, see {@link Solver#solve(int[][], SolveBudget)}.
+ * A budget has an optional deadline, an optional maximum number of search nodes and can be cancelled
+ * from any thread with {@link #cancel()}. Interrupting the solving thread cancels the solve as well.
+ * The engines check the budget every {@link #CHECK_INTERVAL} search nodes, so a budgeted solve adds
+ * no per-node work besides a counter. A budget keeps track of the nodes it granted and is meant for one solve.
+ */
+public class SolveBudget {
+
+    // search nodes between two checks of the clock and the cancellation flag
+    public static final int CHECK_INTERVAL = 1024;
+
+    private final long deadline;        // in System.nanoTime, only meaningful if hasDeadline
+    private final boolean hasDeadline;
+    private final long maxNodes;
+    private volatile boolean cancelled;
+    private long nodes;                 // nodes granted so far
+    private long chunkLeft;             // nodes left of the last granted chunk, used by spend
+    private SolveResult.Status stopReason;
+
+    /**
+     * @param timeout the time the solve may take from now on, null for no deadline
+     * @param maxNodes the maximum number of search nodes the solve may expand
+     */
+    public SolveBudget(Duration timeout, long maxNodes) {
+        this(timeout != null, timeout != null ? System.nanoTime() + timeout.toNanos() : 0, maxNodes);
+    }
+
+    private SolveBudget(boolean hasDeadline, long deadline, long maxNodes) {
+        if (maxNodes < 0) throw new IllegalArgumentException("maxNodes must not be negative");
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.maxNodes = maxNodes;
+    }
+
+    public static SolveBudget unlimited() {
+        return new SolveBudget(null, Long.MAX_VALUE);
+    }
+
+    public static SolveBudget ofTimeout(Duration timeout) {
+        return new SolveBudget(timeout, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param deadline the System.nanoTime by which the solve has to stop, so budgets for grids that wait
+     *                 in a queue first can share the deadline of the request they belong to
+     */
+    public static SolveBudget ofDeadline(long deadline) {
+        return new SolveBudget(true, deadline, Long.MAX_VALUE);
+    }
+
+    public static SolveBudget ofMaxNodes(long maxNodes) {
+        return new SolveBudget(null, maxNodes);
+    }
+
+    /**
+     * stops the solve using this budget at its next check, can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the number of search nodes granted to the solve so far
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return TIMED_OUT or CANCELLED if the budget stopped the solve, null while it is within budget
+     */
+    public SolveResult.Status getStopReason() {
+        return stopReason;
+    }
+
+    public boolean isStopped() {
+        return stopReason != null;
+    }
+
+    /**
+     * checks the budget and grants the next chunk of search nodes.
+     * @return the number of nodes the solve may expand before asking again, 0 once the budget is used up
+     */
+    long nextChunk() {
+        if (stopReason != null) return 0;
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            stopReason = SolveResult.Status.CANCELLED;
+            return 0;
+        }
+        if ((hasDeadline && System.nanoTime() - deadline >= 0) || nodes >= maxNodes) {
+            stopReason = SolveResult.Status.TIMED_OUT;
+            return 0;
+        }
+        long chunk = Math.min(CHECK_INTERVAL, maxNodes - nodes);
+        nodes += chunk;
+        return chunk;
+    }
+
+    /**
+     * accounts for one search node, for the recursive engines.
+     * @return false once the budget is used up, the search should then unwind
+     */
+    boolean spend() {
+        if (chunkLeft > 0) {
+            chunkLeft--;
+            return true;
+        }
+        chunkLeft = nextChunk();
+        return chunkLeft-- > 0;
+    }
+}
@@ -0,0 +1,70 @@
+package SudokuSolver;
+
+/**
+ * The outcome of a budgeted solve, see {@link Solver#solve(int[][], SolveBudget)}.
+ */
+public class SolveResult {
+
+    public enum Status {
+        /** a solution was found */
+        SOLVED,
+        /** the whole search space was searched without finding a solution */
+        UNSOLVABLE,
+        /** the deadline or the node limit of the budget was reached first */
+        TIMED_OUT,
+        /** the budget was cancelled or the solving thread was interrupted */
+        CANCELLED,
+        /** the grid is not a valid grid for the solver */
+        INVALID_INPUT
+    }
+
+    private final Status status;
+    private final int[][] solution;
+    private final String message;
+
+    private SolveResult(Status status, int[][] solution, String message) {
+        this.status = status;
+        this.solution = solution;
+        this.message = message;
+    }
+
+    public static SolveResult solved(int[][] solution) {
+        return new SolveResult(Status.SOLVED, solution, null);
+    }
+
+    public static SolveResult unsolved(Status status) {
+        if (status == Status.SOLVED) throw new IllegalArgumentException("a solved result needs a solution");
+        return new SolveResult(status, null, null);
+    }
+
+    public static SolveResult invalidInput(String message) {
+        return new SolveResult(Status.INVALID_INPUT, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * @return the solved grid, or null if the status is not SOLVED
+     */
+    public int[][] getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return why the input was rejected, or null if the status is not INVALID_INPUT
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message == null ? status.toString() : status + ": " + message;
+    }
+}
@@ -0,0 +1,100 @@
+package SudokuSolver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Statistics of a single solve, filled by {@link Solver#solve(int[][], int[][], SolveStats)}.
+ * Engines only count while a stats object is passed in, so solving without one costs nothing extra.
+ * Engines that do not count search internals only report the timings.
+ * A stats object is reset at the start of every solve and can be reused.
+ */
+public class SolveStats {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // updated directly by the engines
+    long nodes;         // search nodes expanded
+    long backtracks;    // choices undone because they did not lead to a solution
+    long covers;        // column covers, or cell assignments for the bitmask solver
+    long uncovers;      // column uncovers, or cell unassignments for the bitmask solver
+    int maxDepth;       // deepest search level reached
+    int rootBranching;  // number of choices at the first search level, -1 if the search never branched
+
+    private boolean solved;
+    private long wallNanos;
+    private long cpuNanos;
+    private long wallStart, cpuStart;
+
+    public SolveStats() {
+        reset();
+    }
+
+    public void reset() {
+        nodes = backtracks = covers = uncovers = 0;
+        maxDepth = 0;
+        rootBranching = -1;
+        solved = false;
+        wallNanos = cpuNanos = 0;
+    }
+
+    // resets the counters and starts the clocks
+    void start() {
+        reset();
+        wallStart = System.nanoTime();
+        cpuStart = cpuTime();
+    }
+
+    void stop(boolean solved) {
+        this.solved = solved;
+        wallNanos = System.nanoTime() - wallStart;
+        cpuNanos = cpuTime() - cpuStart;
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public long getCovers() {
+        return covers;
+    }
+
+    public long getUncovers() {
+        return uncovers;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getRootBranching() {
+        return rootBranching;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveStats{solved=" + solved + ", nodes=" + nodes + ", backtracks=" + backtracks
+                + ", covers=" + covers + ", uncovers=" + uncovers + ", maxDepth=" + maxDepth
+                + ", rootBranching=" + rootBranching + ", wallNanos=" + wallNanos + ", cpuNanos=" + cpuNanos + "}";
+    }
+}
@@ -0,0 +1,182 @@
+package SudokuSolver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A solver for grids of one fixed size.
+ * Implementations preallocate their state for that size once and reset it between grids,
+ * so solving into a caller provided grid with {@link #solve(int[][], int[][])} does not allocate.
+ * Solvers are not thread safe, {@link #forSize(int)} hands out one per thread.
+ */
+public interface Solver {
+
+    enum Engine {
+        /** the object graph dancing links of {@link SudokuDLX}, allocates its structure for every grid */
+        DLX,
+        /** the array backed dancing links of {@link ArraySudokuDLX} */
+        ARRAY_DLX,
+        /** the bitmask propagation solver of {@link BitmaskSudokuSolver} */
+        BITMASK,
+        /** the plain backtracking of {@link BacktrackingSudokuSolver}, allocates on every step */
+        BACKTRACKING,
+        /** the validity check and logical rules of {@link PresolvePipeline} in front of the array dancing links */
+        PIPELINE,
+        /** the generic {@link ExactCover} engine with the plain sudoku encoding of {@link VariantSudokuSolver} */
+        EXACT_COVER
+    }
+
+    /**
+     * @return the side length of the grids this solver accepts
+     */
+    int size();
+
+    /**
+     * solves the given grid into solution, cells <= 0 are considered empty.
+     * The solution grid is only written when a solution is found.
+     * @return false if the grid has no solution
+     */
+    boolean solve(int[][] grid, int[][] solution);
+
+    /**
+     * @return the solved grid, or null if the grid has no solution
+     */
+    default int[][] solve(int[][] grid) {
+        int[][] solution = new int[size()][size()];
+        return solve(grid, solution) ? solution : null;
+    }
+
+    /**
+     * solves like {@link #solve(int[][], int[][])} and records the statistics of this solve into stats.
+     * Engines that do not count their search only record the timings.
+     * @return false if the grid has no solution
+     */
+    default boolean solve(int[][] grid, int[][] solution, SolveStats stats) {
+        boolean solved = false;
+        stats.start();
+        try {
+            solved = solve(grid, solution);
+            return solved;
+        } finally {
+            stats.stop(solved);
+        }
+    }
+
+    /**
+     * solves like {@link #solve(int[][], int[][])} but gives up once the budget is used up.
+     * Engines that cannot check a budget during their search only check it before they start.
+     * @return false if the grid has no solution or the budget stopped the search, see {@link SolveBudget#isStopped()}
+     */
+    default boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        return budget.nextChunk() > 0 && solve(grid, solution);
+    }
+
+    /**
+     * solves the given grid within the budget, invalid grids are reported instead of thrown.
+     */
+    default SolveResult solve(int[][] grid, SolveBudget budget) {
+        try {
+            if (Grids.validateGivens(grid) != size()) {
+                return SolveResult.invalidInput("expected a grid of size " + size() + " but got " + grid.length);
+            }
+        } catch (IllegalArgumentException e) {
+            return SolveResult.invalidInput(e.getMessage());
+        }
+        int[][] solution = new int[size()][size()];
+        if (solve(grid, solution, budget)) return SolveResult.solved(solution);
+        return SolveResult.unsolved(budget.isStopped() ? budget.getStopReason() : SolveResult.Status.UNSOLVABLE);
+    }
+
+    /**
+     * solves the packed board starting at offset in place, see {@link PackedBoards}.
+     * The board is only written when a solution is found.
+     * This default unpacks the board into a temporary grid, engines that can read and write packed
+     * boards directly override it.
+     * @return false if the board has no solution
+     */
+    default boolean solveInPlace(ByteBuffer boards, int offset, PackedBoards.Format format) {
+        format.checkSize(size());
+        int[][] grid = PackedBoards.unpack(boards, offset, size(), format);
+        int[][] solution = new int[size()][size()];
+        if (!solve(grid, solution)) return false;
+        PackedBoards.pack(solution, boards, offset, format);
+        return true;
+    }
+
+    /**
+     * @return the default solver for grids of size n, cached for the calling thread
+     */
+    static Solver forSize(int n) {
+        return forSize(n, Engine.ARRAY_DLX);
+    }
+
+    /**
+     * @return a solver using the given engine for grids of size n, cached per thread where the engine keeps
+     *         state, the stateless DLX and BACKTRACKING adapters are created on every call
+     */
+    static Solver forSize(int n, Engine engine) {
+        switch (engine) {
+            case ARRAY_DLX:
+                return ArraySudokuDLX.forSize(n);
+            case BITMASK:
+                return BitmaskSudokuSolver.forSize(n);
+            case PIPELINE:
+                return PresolvePipeline.forSize(n);
+            case EXACT_COVER:
+                return VariantSudokuSolver.forSize(n);
+            default:
+                return new StaticEngineSolver(n, engine);
+        }
+    }
+}
+
+/**
+ * adapts the static one-shot engines to the Solver interface, they do not keep any state between grids
+ */
+class StaticEngineSolver implements Solver {
+    private final int n;
+    private final Engine engine;
+
+    StaticEngineSolver(int n, Engine engine) {
+        this.n = n;
+        this.engine = engine;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution) {
+        if (grid.length != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        int[][] solved = engine == Engine.DLX ? SudokuDLX.solve(grid) : BacktrackingSudokuSolver.solve(grid);
+        if (solved == null) return false;
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                // backtracking leaves unfillable cells empty instead of failing
+                if (solved[row][col] <= 0) return false;
+            }
+        }
+        copy(solved, solution);
+        return true;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        if (grid.length != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        int[][] solved = engine == Engine.DLX ? SudokuDLX.solve(grid, budget) : BacktrackingSudokuSolver.solve(grid, budget);
+        if (solved == null) return false;
+        copy(solved, solution);
+        return true;
+    }
+
+    private void copy(int[][] solved, int[][] solution) {
+        for (int row = 0; row < n; row++) {
+            System.arraycopy(solved[row], 0, solution[row], 0, n);
+        }
+    }
+}
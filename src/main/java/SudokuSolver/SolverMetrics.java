@@ -0,0 +1,118 @@
+package SudokuSolver;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated statistics of many solves.
+ * Every counter is a LongAdder, so any number of worker threads can record their {@link SolveStats}
+ * without contending on a shared counter. The totals can be exported over JMX with {@link #register(String)}.
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder covers = new LongAdder();
+    private final LongAdder uncovers = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxWallNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(SolveStats stats) {
+        solves.increment();
+        if (stats.isSolved()) solved.increment();
+        nodes.add(stats.getNodes());
+        backtracks.add(stats.getBacktracks());
+        covers.add(stats.getCovers());
+        uncovers.add(stats.getUncovers());
+        wallNanos.add(stats.getWallNanos());
+        cpuNanos.add(stats.getCpuNanos());
+        maxDepth.accumulate(stats.getMaxDepth());
+        maxWallNanos.accumulate(stats.getWallNanos());
+    }
+
+    /**
+     * registers these metrics with the platform MBean server as SudokuSolver:type=SolverMetrics,name=&lt;name&gt;.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("SudokuSolver:type=SolverMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public void reset() {
+        solves.reset();
+        solved.reset();
+        nodes.reset();
+        backtracks.reset();
+        covers.reset();
+        uncovers.reset();
+        wallNanos.reset();
+        cpuNanos.reset();
+        maxDepth.reset();
+        maxWallNanos.reset();
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getSolved() {
+        return solved.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    @Override
+    public long getCovers() {
+        return covers.sum();
+    }
+
+    @Override
+    public long getUncovers() {
+        return uncovers.sum();
+    }
+
+    @Override
+    public long getWallNanos() {
+        return wallNanos.sum();
+    }
+
+    @Override
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long getMaxWallNanos() {
+        return maxWallNanos.get();
+    }
+
+    @Override
+    public double getAverageWallMicros() {
+        long count = solves.sum();
+        return count == 0 ? 0 : wallNanos.sum() / 1e3 / count;
+    }
+}
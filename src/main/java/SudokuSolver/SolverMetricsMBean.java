@@ -0,0 +1,19 @@
+package SudokuSolver;
+
+/**
+ * JMX view of {@link SolverMetrics}.
+ */
+public interface SolverMetricsMBean {
+    long getSolves();
+    long getSolved();
+    long getNodes();
+    long getBacktracks();
+    long getCovers();
+    long getUncovers();
+    long getWallNanos();
+    long getCpuNanos();
+    long getMaxDepth();
+    long getMaxWallNanos();
+    double getAverageWallMicros();
+    void reset();
+}
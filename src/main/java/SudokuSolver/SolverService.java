@@ -0,0 +1,357 @@
+package SudokuSolver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local solving service on the JDK's embedded HTTP server.
+ *
+ * POST /solve takes {"grid": [[...], ...], "timeoutMillis": 1000} and answers
+ * {"status": "SOLVED", "solution": [[...], ...], "micros": 123}, empty cells are 0.
+ *
+ * POST /batch?n=9&amp;format=BYTE&amp;timeoutMillis=1000 takes packed boards back to back, see {@link PackedBoards},
+ * and streams back a status byte (the ordinal of {@link SolveResult.Status}) followed by the board for
+ * every board in input order, solved if the status is SOLVED. Boards are solved while the rest of the
+ * request is still being read, with at most {@link #BATCH_WINDOW} boards of a request pending at once.
+ *
+ * GET /metrics answers the request counters and the aggregated {@link SolverMetrics} as JSON.
+ *
+ * Grids are solved on a fixed pool of worker threads, every worker reuses its cached {@link Solver}
+ * per size. At most maxInFlight requests are admitted at once, the rest are answered with 503 right
+ * away instead of queueing without bound. Every request is solved within a time limit, the one it
+ * asks for capped by the limit of the service; the time spent waiting for a worker counts towards it.
+ *
+ * usage: SolverService [<port>] [<parallelism>]
+ */
+public class SolverService implements AutoCloseable {
+
+    // boards of a batch request that are handed to the workers before the oldest one is written back
+    public static final int BATCH_WINDOW = 64;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ExecutorService workers;
+    private final Semaphore admission;
+    private final int maxInFlight;
+    private final Duration timeLimit;
+    private final Solver.Engine engine;
+    private final SolverMetrics metrics = new SolverMetrics();
+    private final ThreadLocal<SolveStats> workerStats = ThreadLocal.withInitial(SolveStats::new);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder boards = new LongAdder();
+
+    public SolverService(int port) throws IOException {
+        this(new InetSocketAddress("localhost", port), Runtime.getRuntime().availableProcessors(),
+                16*Runtime.getRuntime().availableProcessors(), Duration.ofSeconds(10), Solver.Engine.PIPELINE);
+    }
+
+    /**
+     * @param address the address to listen on, port 0 picks a free port
+     * @param parallelism the number of worker threads that solve grids
+     * @param maxInFlight the maximum number of requests being handled at once, others get 503
+     * @param timeLimit the longest any request may take to solve
+     * @param engine the engine the workers solve with
+     */
+    public SolverService(InetSocketAddress address, int parallelism, int maxInFlight, Duration timeLimit, Solver.Engine engine) throws IOException {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive");
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be positive");
+        this.maxInFlight = maxInFlight;
+        this.timeLimit = timeLimit;
+        this.engine = engine;
+        this.admission = new Semaphore(maxInFlight);
+        this.workers = Executors.newFixedThreadPool(parallelism);
+        // handler threads mostly wait for the workers, admission bounds how many of them are busy
+        this.handlers = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/batch", this::handleBatch);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 2) {
+            System.err.println("usage: SolverService [<port>] [<parallelism>]");
+            System.exit(2);
+        }
+        int port = args.length >= 1 ? Integer.parseInt(args[0]) : 8080;
+        int parallelism = args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        SolverService service = new SolverService(new InetSocketAddress("localhost", port), parallelism,
+                16*parallelism, Duration.ofSeconds(10), Solver.Engine.PIPELINE);
+        Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+        service.start();
+        System.err.println("listening on http://localhost:" + service.getAddress().getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdown();
+        workers.shutdownNow();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!admit(exchange, "POST")) return;
+            try {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                int[][] grid;
+                Duration limit;
+                try {
+                    grid = parseGrid(body);
+                    Grids.validateGivens(grid);
+                    limit = limit(jsonLong(body, "timeoutMillis"));
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, "{\"status\":\"INVALID_INPUT\",\"message\":" + quote(e.getMessage()) + "}");
+                    return;
+                }
+
+                // the clock starts now, not when a worker picks the grid up
+                long start = System.nanoTime();
+                SolveBudget budget = SolveBudget.ofDeadline(start + limit.toNanos());
+                SolveResult result = join(workers.submit(() -> solve(grid, budget)));
+                long micros = (System.nanoTime() - start) / 1000;
+                StringBuilder json = new StringBuilder("{\"status\":\"").append(result.getStatus()).append('"');
+                if (result.getSolution() != null) {
+                    json.append(",\"solution\":").append(Arrays.deepToString(result.getSolution()).replace(" ", ""));
+                }
+                if (result.getMessage() != null) json.append(",\"message\":").append(quote(result.getMessage()));
+                json.append(",\"micros\":").append(micros).append('}');
+                send(exchange, result.getStatus() == SolveResult.Status.INVALID_INPUT ? 400 : 200, json.toString());
+            } finally {
+                admission.release();
+            }
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!admit(exchange, "POST")) return;
+            try {
+                Map<String, String> query = parseQuery(exchange.getRequestURI());
+                int n;
+                PackedBoards.Format format;
+                Duration limit;
+                try {
+                    n = Integer.parseInt(query.getOrDefault("n", "9"));
+                    format = PackedBoards.Format.valueOf(query.getOrDefault("format", "BYTE"));
+                    format.checkSize(n);
+                    int subgridSize = (int) Math.round(Math.sqrt(n));
+                    if (n <= 0 || subgridSize * subgridSize != n || n > maxSize(engine)) {
+                        throw new IllegalArgumentException("n must be a square number from 1 to " + maxSize(engine));
+                    }
+                    limit = limit(query.containsKey("timeoutMillis") ? Long.parseLong(query.get("timeoutMillis")) : -1);
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, "{\"status\":\"INVALID_INPUT\",\"message\":" + quote(e.getMessage()) + "}");
+                    return;
+                }
+
+                int boardBytes = PackedBoards.boardBytes(n, format);
+                long deadline = System.nanoTime() + limit.toNanos();
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, 0);
+                InputStream in = exchange.getRequestBody();
+                DataOutputStream out = new DataOutputStream(exchange.getResponseBody());
+                Deque<Future<byte[]>> pending = new ArrayDeque<>(BATCH_WINDOW);
+                while (true) {
+                    byte[] board = in.readNBytes(boardBytes);
+                    if (board.length < boardBytes) break;   // a trailing partial board is ignored
+                    if (pending.size() == BATCH_WINDOW) out.write(join(pending.poll()));
+                    SolveBudget budget = SolveBudget.ofDeadline(deadline);
+                    pending.add(workers.submit(() -> solvePacked(board, n, format, budget)));
+                }
+                while (!pending.isEmpty()) out.write(join(pending.poll()));
+                out.flush();
+            } finally {
+                admission.release();
+            }
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, "{\"message\":\"use GET\"}");
+                return;
+            }
+            String json = "{\"requests\":" + requests.sum()
+                    + ",\"rejected\":" + rejected.sum()
+                    + ",\"inFlight\":" + (maxInFlight - admission.availablePermits())
+                    + ",\"boards\":" + boards.sum()
+                    + ",\"timedOut\":" + timedOut.sum()
+                    + ",\"solves\":" + metrics.getSolves()
+                    + ",\"solved\":" + metrics.getSolved()
+                    + ",\"averageWallMicros\":" + metrics.getAverageWallMicros()
+                    + ",\"maxWallMicros\":" + (metrics.getMaxWallNanos() / 1000)
+                    + ",\"cpuMillis\":" + (metrics.getCpuNanos() / 1_000_000) + "}";
+            send(exchange, 200, json);
+        }
+    }
+
+    // counts the request and takes an admission permit, answers the request itself if it is not admitted
+    private boolean admit(HttpExchange exchange, String method) throws IOException {
+        requests.increment();
+        if (!exchange.getRequestMethod().equals(method)) {
+            send(exchange, 405, "{\"message\":\"use " + method + "\"}");
+            return false;
+        }
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, "{\"message\":\"too many requests in flight\"}");
+            return false;
+        }
+        return true;
+    }
+
+    // runs on a worker thread
+    private SolveResult solve(int[][] grid, SolveBudget budget) {
+        SolveStats stats = workerStats.get();
+        stats.start();
+        SolveResult result = null;
+        try {
+            try {
+                result = Solver.forSize(grid.length, engine).solve(grid, budget);
+            } catch (IllegalArgumentException e) {
+                // the engine does not support grids of this size
+                result = SolveResult.invalidInput(e.getMessage());
+            }
+            return result;
+        } finally {
+            stats.stop(result != null && result.getStatus() == SolveResult.Status.SOLVED);
+            metrics.record(stats);
+            if (result != null && result.getStatus() == SolveResult.Status.TIMED_OUT) timedOut.increment();
+        }
+    }
+
+    // runs on a worker thread, returns the status byte followed by the board
+    private byte[] solvePacked(byte[] board, int n, PackedBoards.Format format, SolveBudget budget) {
+        boards.increment();
+        ByteBuffer buffer = ByteBuffer.wrap(board);
+        SolveResult result = solve(PackedBoards.unpack(buffer, 0, n, format), budget);
+        if (result.getStatus() == SolveResult.Status.SOLVED) PackedBoards.pack(result.getSolution(), buffer, 0, format);
+        byte[] response = new byte[board.length + 1];
+        response[0] = (byte) result.getStatus().ordinal();
+        System.arraycopy(board, 0, response, 1, board.length);
+        return response;
+    }
+
+    // the largest grid size the engine accepts
+    private static int maxSize(Solver.Engine engine) {
+        return engine == Solver.Engine.BITMASK ? BitmaskSudokuSolver.MAX_SIZE : ArraySudokuDLX.MAX_SIZE;
+    }
+
+    private Duration limit(long timeoutMillis) {
+        if (timeoutMillis < 0) return timeLimit;
+        Duration requested = Duration.ofMillis(timeoutMillis);
+        return requested.compareTo(timeLimit) < 0 ? requested : timeLimit;
+    }
+
+    private static <T> T join(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IOException("solving failed", e.getCause());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * reads the nested int array of the "grid" member of a JSON object, the rest of the object is not validated.
+     */
+    static int[][] parseGrid(String json) {
+        int key = json.indexOf("\"grid\"");
+        if (key < 0) throw new IllegalArgumentException("missing \"grid\"");
+        int i = json.indexOf('[', key);
+        if (i < 0) throw new IllegalArgumentException("\"grid\" is not an array");
+
+        List<int[]> rows = new ArrayList<>();
+        List<Integer> row = null;
+        int depth = 0;
+        for (; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '[') {
+                if (++depth > 2) throw new IllegalArgumentException("\"grid\" is nested too deep");
+                if (depth == 2) row = new ArrayList<>();
+            } else if (c == ']') {
+                if (depth == 2) rows.add(row.stream().mapToInt(Integer::intValue).toArray());
+                if (--depth == 0) break;
+            } else if (c == '-' || Character.isDigit(c)) {
+                if (depth != 2) throw new IllegalArgumentException("values of \"grid\" must be in rows");
+                int end = i + 1;
+                while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+                row.add(Integer.parseInt(json.substring(i, end)));
+                i = end - 1;
+            } else if (c != ',' && !Character.isWhitespace(c)) {
+                throw new IllegalArgumentException("unexpected '" + c + "' in \"grid\"");
+            }
+        }
+        if (depth != 0) throw new IllegalArgumentException("\"grid\" is not closed");
+        return rows.toArray(new int[0][]);
+    }
+
+    // the value of a numeric member of a JSON object, -1 if it is missing
+    private static long jsonLong(String json, String name) {
+        int key = json.indexOf("\"" + name + "\"");
+        if (key < 0) return -1;
+        int i = json.indexOf(':', key) + 1;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        int end = i;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+        if (end == i) throw new IllegalArgumentException("\"" + name + "\" is not a number");
+        return Long.parseLong(json.substring(i, end));
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        if (uri.getRawQuery() == null) return query;
+        for (String pair : uri.getRawQuery().split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) query.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return query;
+    }
+
+    private static String quote(String text) {
+        if (text == null) return "null";
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -31,10 +31,43 @@ import java.util.*;
 
 public class SudokuDLX {
 
+    /**
+     * how the search picks the column to branch on, both pick a column of minimum size
+     */
+    public enum ColumnSelection {
+        /** scans every remaining column on every search node */
+        LINEAR_SCAN,
+        /** keeps the columns in a list per size, updated by cover and uncover, and takes the first non-empty one */
+        SIZE_BUCKETS
+    }
+
+    public static final ColumnSelection DEFAULT_SELECTION = ColumnSelection.SIZE_BUCKETS;
+
     public static int[][] solve(int[][] grid) {
-        ColumnNode header = createDLX(grid);
+        return solve(grid, null, DEFAULT_SELECTION);
+    }
+
+    /**
+     * solves the grid, giving up once the budget is used up.
+     * @param budget the budget of the search, null for no limit
+     * @return the solved grid, or null if the grid has no solution or the budget stopped the search
+     */
+    public static int[][] solve(int[][] grid, SolveBudget budget) {
+        return solve(grid, budget, DEFAULT_SELECTION);
+    }
+
+    /**
+     * solves the grid with the given column selection, giving up once the budget is used up.
+     * @param budget the budget of the search, null for no limit
+     * @return the solved grid, or null if the grid has no solution or the budget stopped the search
+     */
+    public static int[][] solve(int[][] grid, SolveBudget budget, ColumnSelection selection) {
+        Grids.validate(grid);
+        // the givens are taken as they are, the exact cover never sees two of them clash
+        if (Grids.hasRepeatedGivens(grid)) return null;
+        ColumnNode header = createDLX(grid, selection);
         List<DancingNode> solution = new ArrayList<>();
-        boolean isSolved = _solve(header, solution);
+        boolean isSolved = _solve(header, solution, budget);
 
         if (isSolved) {
             int[][] solved = reconstructSolution(grid, solution);
@@ -42,6 +75,25 @@ public class SudokuDLX {
         } else return null;
     }
 
+    /**
+     * counts the solutions of the given grid, stopping as soon as limit solutions are found.
+     * @return the number of solutions, at most limit
+     */
+    public static int countSolutions(int[][] grid, int limit) {
+        return countSolutions(grid, limit, DEFAULT_SELECTION);
+    }
+
+    public static int countSolutions(int[][] grid, int limit, ColumnSelection selection) {
+        Grids.validate(grid);
+        if (limit <= 0 || Grids.hasRepeatedGivens(grid)) return 0;
+        ColumnNode header = createDLX(grid, selection);
+        return _count(header, limit);
+    }
+
+    public static boolean isUnique(int[][] grid) {
+        return countSolutions(grid, 2) == 1;
+    }
+
     private static int[][] reconstructSolution(int[][] grid, List<DancingNode> solution) {
         int[][] solved = new int[grid.length][grid.length];
         int n = grid.length;
@@ -62,12 +114,15 @@ public class SudokuDLX {
         return solved;
     }
 
-    private static boolean _solve(ColumnNode header, List<DancingNode> solution) {
+    private static boolean _solve(ColumnNode header, List<DancingNode> solution, SolveBudget budget) {
         if (header.right == header) {
             // we have reached a solution, all constraints are met
             return true;
+        } else if (budget != null && !budget.spend()) {
+            // out of budget, every level unwinds without trying its remaining rows
+            return false;
         } else {
-            ColumnNode c = selectColumnNode(header);
+            ColumnNode c = header.buckets != null ? header.buckets.min() : selectColumnNode(header);
 
             c.cover();
             for (DancingNode row = c.bottom; row != c; row = row.bottom) {
@@ -77,12 +132,12 @@ public class SudokuDLX {
                     sat.column.cover();
                 }
 
-                boolean reachedSolution = _solve(header, solution);
+                boolean reachedSolution = _solve(header, solution, budget);
                 if (reachedSolution) return true;
 
                 // no solution reached, undo choice
                 solution.remove(solution.size()-1);
-                for (DancingNode sat = row.right; sat != row; sat = sat.right) {
+                for (DancingNode sat = row.left; sat != row; sat = sat.left) {
                     sat.column.uncover();
                 }
             }
@@ -93,6 +148,26 @@ public class SudokuDLX {
         }
     }
 
+    private static int _count(ColumnNode header, int limit) {
+        if (header.right == header) return 1;
+
+        int found = 0;
+        ColumnNode c = header.buckets != null ? header.buckets.min() : selectColumnNode(header);
+        c.cover();
+        for (DancingNode row = c.bottom; row != c && found < limit; row = row.bottom) {
+            for (DancingNode sat = row.right; sat != row; sat = sat.right) {
+                sat.column.cover();
+            }
+            found += _count(header, limit - found);
+            for (DancingNode sat = row.left; sat != row; sat = sat.left) {
+                sat.column.uncover();
+            }
+        }
+        c.uncover();
+
+        return found;
+    }
+
     public static ColumnNode selectColumnNode(ColumnNode header) {
         ColumnNode selected = null;
         int min = Integer.MAX_VALUE;
@@ -105,27 +180,55 @@ public class SudokuDLX {
     }
 
     public static ColumnNode createDLX(int[][] grid) {
-        int[][] coverMatrix = createCoverMatrix(grid);
-        int n = grid.length;
+        return createDLX(grid, ColumnSelection.LINEAR_SCAN);
+    }
+
+    /**
+     * builds the dancing links structure straight from the constraints of the grid.
+     * Only val x pos combinations that are still possible given the initial board get a row,
+     * so memory and build time grow with the number of candidates instead of the dense cover matrix.
+     * With {@link ColumnSelection#SIZE_BUCKETS} the remaining columns are put in their size buckets,
+     * which the header and every column share.
+     */
+    public static ColumnNode createDLX(int[][] grid, ColumnSelection selection) {
+        final int n = grid.length;
+        final int SUBGRID_SIZE = (int) Math.round(Math.sqrt(n));
         ColumnNode header = new ColumnNode(-1);
-        List<ColumnNode> columns = new ArrayList<>(4*n*n);
-        for (int i = 0; i < coverMatrix.length; i++) {
+        ColumnNode[] columns = new ColumnNode[4*n*n];
+        for (int i = 0; i < columns.length; i++) {
             ColumnNode c = new ColumnNode(i);
             header = header.linkRight(c).column;
-            columns.add(c);
+            columns[i] = c;
         }
         header = header.right.column;   // return to the original header
 
-        for (int[] constraints : coverMatrix) {
-            DancingNode prev = null;
-            for (int j = 0; j < constraints.length; j++) {
-                if (constraints[j] != 1) continue;
-                ColumnNode c = columns.get(j);
-                DancingNode node = new DancingNode(c);
-                c.top.linkDown(node);
-                c.size++;
-                if (prev == null) prev = node;
-                prev = prev.linkRight(node);
+        // constraints that are already satisfied by the initial board
+        boolean[] satisfied = new boolean[4*n*n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] <= 0) continue;
+                int[] constraints = constraintsOf(row, col, grid[row][col]-1, n, SUBGRID_SIZE);
+                for (int constraint : constraints) satisfied[constraint] = true;
+            }
+        }
+
+        // link every val x pos combination that does not satisfy an already satisfied constraint
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                for (int val = 0; val < n; val++) {
+                    int[] constraints = constraintsOf(row, col, val, n, SUBGRID_SIZE);
+                    if (satisfied[constraints[0]] || satisfied[constraints[1]]
+                            || satisfied[constraints[2]] || satisfied[constraints[3]]) continue;
+                    DancingNode prev = null;
+                    for (int constraint : constraints) {
+                        ColumnNode c = columns[constraint];
+                        DancingNode node = new DancingNode(c);
+                        c.top.linkDown(node);
+                        c.size++;
+                        if (prev == null) prev = node;
+                        prev = prev.linkRight(node);
+                    }
+                }
             }
         }
 
@@ -133,9 +236,33 @@ public class SudokuDLX {
             if (c.size == 0) c.cover();
         }
 
+        if (selection == ColumnSelection.SIZE_BUCKETS) {
+            SizeBuckets buckets = new SizeBuckets(n);
+            header.buckets = buckets;
+            for (ColumnNode c = header.right.column; c != header; c = c.right.column) {
+                buckets.add(c);
+                c.buckets = buckets;
+            }
+        }
+
         return header;
     }
 
+    // the cover matrix columns a val x pos combination satisfies, in cell -> row -> col -> subgrid order
+    private static int[] constraintsOf(int row, int col, int val, int n, int subgridSize) {
+        int subgrid = ((row/subgridSize)*subgridSize) + (col/subgridSize);
+        return new int[]{
+            (row*n) + col,
+            n*n + (row*n) + val,
+            2*n*n + (col*n) + val,
+            3*n*n + (subgrid*n) + val
+        };
+    }
+
+    /**
+     * creates the dense n*n*n x 4*n*n cover matrix of the grid.
+     * createDLX no longer goes through this matrix, it is kept as a readable reference of the encoding.
+     */
     public static int[][] createCoverMatrix(int[][] grid) {
         final int n = grid.length;
         // 4*n*n: each row needs every value (n*n) 
@@ -260,6 +387,9 @@ class DancingNode {
 class ColumnNode extends DancingNode {
     public int id;
     public int size;
+    // the size buckets this column is kept in while it is not covered, null when selecting by linear scan
+    SizeBuckets buckets;
+    ColumnNode prevInBucket, nextInBucket;
 
     public ColumnNode(int id) {
         super();
@@ -270,20 +400,79 @@ class ColumnNode extends DancingNode {
 
     public void cover() {
         removeLR();
+        if (buckets != null) buckets.remove(this);
         for (DancingNode i = this.bottom; i != this; i = i.bottom) {
             for (DancingNode j = i.right; j != i; j = j.right) {
                 j.removeTB();
-                j.column.size--;
+                ColumnNode c = j.column;
+                if (c.buckets == null) {
+                    c.size--;
+                } else {
+                    c.buckets.remove(c);
+                    c.size--;
+                    c.buckets.add(c);
+                }
             }
         }
     }
+    // undoes cover in exactly the reverse order, otherwise two rows of this column that meet again in
+    // another column are relinked with stale neighbours
     public void uncover() {
-        for (DancingNode i = this.bottom; i != this; i = i.bottom) {
-            for (DancingNode j = i.right; j != i; j = j.right) {
+        for (DancingNode i = this.top; i != this; i = i.top) {
+            for (DancingNode j = i.left; j != i; j = j.left) {
                 j.reinsertTB();
-                j.column.size++;
+                ColumnNode c = j.column;
+                if (c.buckets == null) {
+                    c.size++;
+                } else {
+                    c.buckets.remove(c);
+                    c.size++;
+                    c.buckets.add(c);
+                }
             }
         }
         reinsertLR();
+        if (buckets != null) buckets.add(this);
+    }
+}
+
+/**
+ * the uncovered columns in a doubly linked list per size. A column never has more than n rows, so
+ * the smallest column is found by checking at most n+1 lists, and usually the first one or two as
+ * sudoku searches mostly run into columns of size 0 or 1.
+ */
+class SizeBuckets {
+    private final ColumnNode[] heads;   // sentinel of the list of every size
+
+    SizeBuckets(int n) {
+        heads = new ColumnNode[n + 1];
+        for (int size = 0; size <= n; size++) {
+            ColumnNode head = new ColumnNode(-1);
+            head.prevInBucket = head.nextInBucket = head;
+            heads[size] = head;
+        }
+    }
+
+    void add(ColumnNode c) {
+        ColumnNode head = heads[c.size];
+        c.nextInBucket = head.nextInBucket;
+        c.prevInBucket = head;
+        head.nextInBucket.prevInBucket = c;
+        head.nextInBucket = c;
+    }
+
+    void remove(ColumnNode c) {
+        c.prevInBucket.nextInBucket = c.nextInBucket;
+        c.nextInBucket.prevInBucket = c.prevInBucket;
+    }
+
+    /**
+     * @return an uncovered column of minimum size, or null if every column is covered
+     */
+    ColumnNode min() {
+        for (ColumnNode head : heads) {
+            if (head.nextInBucket != head) return head.nextInBucket;
+        }
+        return null;
     }
 }
@@ -0,0 +1,294 @@
+package SudokuSolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A grid that is edited one cell at a time, for interactive use.
+ * The session keeps a live {@link ArraySudokuDLX} with every entered value applied as a given, so an edit
+ * only covers or uncovers the rows of the edited cell and the feedback (conflicts, candidates, whether the
+ * grid is still solvable or unique) is answered from the current link state instead of from a fresh grid.
+ * Givens are applied in entry order, so changing the most recently entered cell is the cheapest edit and
+ * changing an earlier one re-applies the values entered after it.
+ * A value that repeats a value of its row, column or subgrid is kept but not applied, it is applied as soon
+ * as the conflict is resolved.
+ * Sessions are not thread safe and are meant to be used from the GUI thread, only the solves started by
+ * {@link #solveAsync(Executor)} run elsewhere.
+ */
+public class SudokuSession {
+
+    /** the answer of a check that may give up after its node limit */
+    public enum Answer {
+        YES,
+        NO,
+        /** the node limit was reached before the check was decided */
+        UNKNOWN
+    }
+
+    private final int n;
+    private final int subgridSize;
+    private final ArraySudokuDLX dlx;
+    private final int[] values;         // the entered value of every cell, 0 if empty
+    private final int[] applied;        // the cells applied as givens, in the order they were applied
+    private final int[] position;       // the index of every cell in applied, -1 if it is not applied
+    private int appliedCount;
+    // the number of times every value is entered in every row, column and subgrid, indexed unit*(n+1) + value
+    private final int[] rowValues, colValues, subgridValues;
+    private int conflictCount;          // the number of cells whose value is entered more than once in a unit
+    private SolveBudget solving;        // the budget of the last solve started by solveAsync
+
+    public SudokuSession(int n) {
+        this.dlx = new ArraySudokuDLX(n);
+        this.n = n;
+        this.subgridSize = (int) Math.round(Math.sqrt(n));
+        this.values = new int[n*n];
+        this.applied = new int[n*n];
+        this.position = new int[n*n];
+        Arrays.fill(position, -1);
+        this.rowValues = new int[n*(n + 1)];
+        this.colValues = new int[n*(n + 1)];
+        this.subgridValues = new int[n*(n + 1)];
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int get(int row, int col) {
+        return values[cell(row, col)];
+    }
+
+    /**
+     * enters val in the cell, 0 empties it. A solve started by solveAsync is cancelled.
+     */
+    public void set(int row, int col, int val) {
+        if (val < 0 || val > n) {
+            throw new IllegalArgumentException("value " + val + " does not fit in a grid of size " + n);
+        }
+        int cell = cell(row, col);
+        int old = values[cell];
+        if (old == val) return;
+        cancelSolve();
+
+        if (position[cell] >= 0) unapply(cell);
+        if (old > 0) count(cell, old, -1);
+        values[cell] = val;
+        if (val > 0) {
+            count(cell, val, 1);
+            apply(cell);
+        }
+        // values that repeated the old value may fit now
+        if (old > 0) {
+            for (int i = 0; i < n; i++) {
+                retry(cell(row, i), old);
+                retry(cell(i, col), old);
+                int subgrid = subgrid(cell);
+                retry(cell((subgrid / subgridSize)*subgridSize + i / subgridSize,
+                        (subgrid % subgridSize)*subgridSize + i % subgridSize), old);
+            }
+        }
+    }
+
+    /**
+     * empties every cell.
+     */
+    public void clear() {
+        cancelSolve();
+        while (appliedCount > 0) {
+            dlx.popGiven();
+            position[applied[--appliedCount]] = -1;
+        }
+        Arrays.fill(values, 0);
+        Arrays.fill(rowValues, 0);
+        Arrays.fill(colValues, 0);
+        Arrays.fill(subgridValues, 0);
+        conflictCount = 0;
+    }
+
+    /**
+     * @return a copy of the entered values
+     */
+    public int[][] getGrid() {
+        int[][] grid = new int[n][n];
+        for (int cell = 0; cell < n*n; cell++) grid[cell / n][cell % n] = values[cell];
+        return grid;
+    }
+
+    /**
+     * @return whether the value of the cell is entered more than once in its row, column or subgrid
+     */
+    public boolean isConflicting(int row, int col) {
+        return isConflicting(cell(row, col));
+    }
+
+    public boolean hasConflicts() {
+        return conflictCount > 0;
+    }
+
+    /**
+     * @return the {row, col} of every conflicting cell, in row order
+     */
+    public List<int[]> getConflicts() {
+        List<int[]> conflicts = new ArrayList<>(conflictCount);
+        for (int cell = 0; cell < n*n && conflicts.size() < conflictCount; cell++) {
+            if (isConflicting(cell)) conflicts.add(new int[]{cell / n, cell % n});
+        }
+        return conflicts;
+    }
+
+    /**
+     * @return the number of values that fit in the empty cell next to the entered values, 0 if the cell is not empty
+     */
+    public int getCandidateCount(int row, int col) {
+        int cell = cell(row, col);
+        return values[cell] == 0 ? dlx.candidateCount(cell) : 0;
+    }
+
+    /**
+     * @return the values that fit in the empty cell next to the entered values, in increasing order
+     */
+    public int[] getCandidates(int row, int col) {
+        int cell = cell(row, col);
+        if (values[cell] != 0) return new int[0];
+        int[] candidates = new int[n];
+        return Arrays.copyOf(candidates, dlx.candidates(cell, candidates));
+    }
+
+    /**
+     * checks whether the entered values can be completed to a solution, searching at most maxNodes nodes.
+     */
+    public Answer isSolvable(long maxNodes) {
+        if (conflictCount > 0) return Answer.NO;
+        try {
+            dlx.beginSearchFromGivens();
+            switch (dlx.continueSearch(maxNodes)) {
+                case FOUND:
+                    return Answer.YES;
+                case EXHAUSTED:
+                    return Answer.NO;
+                default:
+                    return Answer.UNKNOWN;
+            }
+        } finally {
+            dlx.endSearchFromGivens();
+        }
+    }
+
+    /**
+     * checks whether the entered values have exactly one solution, both the search for the first solution
+     * and the search for a second one may expand maxNodes nodes.
+     */
+    public Answer isUnique(long maxNodes) {
+        if (conflictCount > 0) return Answer.NO;
+        try {
+            dlx.beginSearchFromGivens();
+            SearchStatus first = dlx.continueSearch(maxNodes);
+            if (first == SearchStatus.EXHAUSTED) return Answer.NO;
+            if (first == SearchStatus.PAUSED) return Answer.UNKNOWN;
+            switch (dlx.continueSearch(maxNodes)) {
+                case FOUND:
+                    return Answer.NO;
+                case EXHAUSTED:
+                    return Answer.YES;
+                default:
+                    return Answer.UNKNOWN;
+            }
+        } finally {
+            dlx.endSearchFromGivens();
+        }
+    }
+
+    /**
+     * solves the entered values on the executor. The solve is cancelled when the grid is edited again,
+     * clear is called or another solve is started, it then completes with CANCELLED.
+     */
+    public CompletableFuture<SolveResult> solveAsync(Executor executor) {
+        cancelSolve();
+        SolveBudget budget = SolveBudget.unlimited();
+        solving = budget;
+        int[][] grid = getGrid();
+        return CompletableFuture.supplyAsync(() -> ArraySudokuDLX.forSize(n).solve(grid, budget), executor);
+    }
+
+    /**
+     * cancels the last solve started by solveAsync, if it is still running.
+     */
+    public void cancelSolve() {
+        if (solving != null) {
+            solving.cancel();
+            solving = null;
+        }
+    }
+
+    private int cell(int row, int col) {
+        if (row < 0 || row >= n || col < 0 || col >= n) {
+            throw new IllegalArgumentException("cell " + row + ", " + col + " is not in a grid of size " + n);
+        }
+        return row*n + col;
+    }
+
+    private int subgrid(int cell) {
+        return (cell / n / subgridSize)*subgridSize + (cell % n) / subgridSize;
+    }
+
+    private boolean isConflicting(int cell) {
+        int val = values[cell];
+        return val > 0 && (rowValues[(cell / n)*(n + 1) + val] > 1 || colValues[(cell % n)*(n + 1) + val] > 1
+                || subgridValues[subgrid(cell)*(n + 1) + val] > 1);
+    }
+
+    // updates the unit counts of val in the cell and the number of conflicting cells
+    private void count(int cell, int val, int delta) {
+        int before = conflictsAround(cell, val, delta < 0);
+        rowValues[(cell / n)*(n + 1) + val] += delta;
+        colValues[(cell % n)*(n + 1) + val] += delta;
+        subgridValues[subgrid(cell)*(n + 1) + val] += delta;
+        conflictCount += conflictsAround(cell, val, delta > 0) - before;
+    }
+
+    // counts the conflicting cells holding val in the row, column and subgrid of the cell, each cell once
+    private int conflictsAround(int cell, int val, boolean includeCell) {
+        int row = cell / n, col = cell % n, subgrid = subgrid(cell);
+        int conflicts = includeCell && isConflicting(cell) ? 1 : 0;
+        for (int i = 0; i < n; i++) {
+            int other = row*n + i;
+            if (i != col && values[other] == val && isConflicting(other)) conflicts++;
+            other = i*n + col;
+            if (i != row && values[other] == val && isConflicting(other)) conflicts++;
+            other = ((subgrid / subgridSize)*subgridSize + i / subgridSize)*n + (subgrid % subgridSize)*subgridSize + i % subgridSize;
+            if (other / n != row && other % n != col && values[other] == val && isConflicting(other)) conflicts++;
+        }
+        return conflicts;
+    }
+
+    // applies the value of the cell as a given if it fits next to the applied givens
+    private void apply(int cell) {
+        if (dlx.pushGiven(cell, values[cell] - 1)) {
+            position[cell] = appliedCount;
+            applied[appliedCount++] = cell;
+        }
+    }
+
+    // applies the cell if it holds val but is not applied yet
+    private void retry(int cell, int val) {
+        if (values[cell] == val && position[cell] < 0) apply(cell);
+    }
+
+    // removes the given of the cell, the givens applied after it are applied again
+    private void unapply(int cell) {
+        int from = position[cell];
+        for (int i = appliedCount - 1; i >= from; i--) dlx.popGiven();
+        position[cell] = -1;
+        int count = appliedCount;
+        appliedCount = from;
+        for (int i = from + 1; i < count; i++) {
+            int other = applied[i];
+            position[other] = appliedCount;
+            applied[appliedCount++] = other;
+            dlx.pushGiven(other, values[other] - 1);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package SudokuSolver;
+
+import java.util.*;
+
+/**
+ * Sudoku and its variants encoded as exact cover problems for the generic {@link ExactCover} engine.
+ * Row (cell*n) + val places val+1 in cell (row*n) + col, it covers the cell, the value in its row, its
+ * column and its region, and the value in every extra region containing the cell.
+ * Regions are given as a region id per cell, the subgrids for plain sudoku or arbitrary shapes for jigsaw.
+ * Extra regions of n cells must hold every value once, which gives the diagonals of X-sudoku and the
+ * windows of hyper sudoku. Cages become secondary columns, they may hold every value at most once.
+ * The exact cover structure is built once per instance and reused for every grid.
+ * The plain sudoku encoding is available as {@link Solver.Engine#EXACT_COVER}, so it can be benchmarked
+ * against the specialized {@link ArraySudokuDLX}.
+ * Instances are not thread safe, use {@link #forSize(int)} to get a plain sudoku solver per thread.
+ */
+public class VariantSudokuSolver implements Solver {
+
+    private static final ThreadLocal<Map<Integer, VariantSudokuSolver>> instances = ThreadLocal.withInitial(HashMap::new);
+
+    private final int n;
+    private final ExactCover cover;
+
+    /**
+     * @param regions the region id in [0, n) of every cell, every region must have n cells
+     * @param extraRegions cells (row*n + col) that must hold every value once, each has n cells
+     * @param cages cells (row*n + col) that may hold every value at most once, each has at most n cells
+     */
+    public VariantSudokuSolver(int[][] regions, List<int[]> extraRegions, List<int[]> cages) {
+        int n = regions.length;
+        if (n == 0) throw new IllegalArgumentException("grid size must be positive");
+        int[] regionSize = new int[n];
+        for (int row = 0; row < n; row++) {
+            if (regions[row].length != n) throw new IllegalArgumentException("row " + row + " does not have " + n + " cells");
+            for (int col = 0; col < n; col++) {
+                if (regions[row][col] < 0 || regions[row][col] >= n) {
+                    throw new IllegalArgumentException("region " + regions[row][col] + " at (" + row + "," + col + ") does not exist");
+                }
+                regionSize[regions[row][col]]++;
+            }
+        }
+        for (int region = 0; region < n; region++) {
+            if (regionSize[region] != n) throw new IllegalArgumentException("region " + region + " does not have " + n + " cells");
+        }
+        this.n = n;
+
+        // the extra regions and cages containing every cell
+        List<List<Integer>> extraOf = new ArrayList<>(), cagesOf = new ArrayList<>();
+        for (int cell = 0; cell < n*n; cell++) {
+            extraOf.add(new ArrayList<>());
+            cagesOf.add(new ArrayList<>());
+        }
+        for (int i = 0; i < extraRegions.size(); i++) {
+            if (extraRegions.get(i).length != n) throw new IllegalArgumentException("extra region " + i + " does not have " + n + " cells");
+            addCells(extraOf, extraRegions.get(i), i);
+        }
+        for (int i = 0; i < cages.size(); i++) {
+            if (cages.get(i).length > n) throw new IllegalArgumentException("cage " + i + " has more than " + n + " cells");
+            addCells(cagesOf, cages.get(i), i);
+        }
+
+        int primary = 4*n*n + (extraRegions.size() * n);
+        cover = new ExactCover(primary, cages.size() * n);
+        for (int cell = 0; cell < n*n; cell++) {
+            int row = cell / n, col = cell % n;
+            List<Integer> extra = extraOf.get(cell), cellCages = cagesOf.get(cell);
+            int[] rowColumns = new int[4 + extra.size() + cellCages.size()];
+            for (int val = 0; val < n; val++) {
+                rowColumns[0] = cell;
+                rowColumns[1] = n*n + (row*n) + val;
+                rowColumns[2] = 2*n*n + (col*n) + val;
+                rowColumns[3] = 3*n*n + (regions[row][col]*n) + val;
+                int k = 4;
+                for (int region : extra) rowColumns[k++] = 4*n*n + (region*n) + val;
+                for (int cage : cellCages) rowColumns[k++] = primary + (cage*n) + val;
+                cover.addRow(rowColumns);
+            }
+        }
+    }
+
+    /**
+     * @return the plain sudoku solver for grids of size n, cached for the calling thread
+     */
+    public static VariantSudokuSolver forSize(int n) {
+        return instances.get().computeIfAbsent(n, VariantSudokuSolver::standard);
+    }
+
+    /**
+     * @return a plain sudoku solver, the regions are the subgrids
+     */
+    public static VariantSudokuSolver standard(int n) {
+        return new VariantSudokuSolver(subgrids(n), Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * @return a jigsaw sudoku solver with the given irregular regions
+     */
+    public static VariantSudokuSolver jigsaw(int[][] regions) {
+        return new VariantSudokuSolver(regions, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * @return an X-sudoku solver, both main diagonals must hold every value once as well
+     */
+    public static VariantSudokuSolver diagonal(int n) {
+        int[] main = new int[n], anti = new int[n];
+        for (int i = 0; i < n; i++) {
+            main[i] = (i*n) + i;
+            anti[i] = (i*n) + (n - 1 - i);
+        }
+        return new VariantSudokuSolver(subgrids(n), Arrays.asList(main, anti), Collections.emptyList());
+    }
+
+    /**
+     * @return a hyper sudoku solver, the subgrid sized windows between the subgrids, one cell in from
+     * the border, must hold every value once as well. There are 4 windows in a 9x9 grid.
+     */
+    public static VariantSudokuSolver hyper(int n) {
+        int s = (int) Math.round(Math.sqrt(n));
+        List<int[]> windows = new ArrayList<>();
+        for (int i = 0; i < s - 1; i++) {
+            for (int j = 0; j < s - 1; j++) {
+                int row0 = 1 + i*(s + 1), col0 = 1 + j*(s + 1);
+                int[] window = new int[n];
+                for (int k = 0; k < n; k++) window[k] = ((row0 + k/s) * n) + col0 + k%s;
+                windows.add(window);
+            }
+        }
+        return new VariantSudokuSolver(subgrids(n), windows, Collections.emptyList());
+    }
+
+    /**
+     * @return the region id of every cell when the regions are the subgrids of a sudoku of size n
+     */
+    public static int[][] subgrids(int n) {
+        int s = (int) Math.round(Math.sqrt(n));
+        if (n <= 0 || s*s != n) throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        int[][] regions = new int[n][n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                regions[row][col] = ((row/s)*s) + (col/s);
+            }
+        }
+        return regions;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public boolean solve(int[][] grid, int[][] solution) {
+        try {
+            if (!beginSearch(grid)) return false;
+            if (cover.continueSearch(Long.MAX_VALUE) != SearchStatus.FOUND) return false;
+            writeSolution(grid, solution);
+            return true;
+        } finally {
+            cover.endSearch();
+        }
+    }
+
+    /**
+     * solves the grid in chunks of nodes, checking the budget between chunks.
+     */
+    @Override
+    public boolean solve(int[][] grid, int[][] solution, SolveBudget budget) {
+        try {
+            if (!beginSearch(grid)) return false;
+            for (long chunk = budget.nextChunk(); chunk > 0; chunk = budget.nextChunk()) {
+                SearchStatus status = cover.continueSearch(chunk);
+                if (status == SearchStatus.EXHAUSTED) return false;
+                if (status == SearchStatus.FOUND) {
+                    writeSolution(grid, solution);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            cover.endSearch();
+        }
+    }
+
+    /**
+     * counts the solutions of the given grid, stopping as soon as limit solutions are found.
+     */
+    public long countSolutions(int[][] grid, long limit) {
+        long found = 0;
+        try {
+            if (!beginSearch(grid)) return 0;
+            while (found < limit && cover.continueSearch(Long.MAX_VALUE) == SearchStatus.FOUND) {
+                found++;
+            }
+            return found;
+        } finally {
+            cover.endSearch();
+        }
+    }
+
+    // the exact cover structure, for encodings that add a filter on top
+    ExactCover getCover() {
+        return cover;
+    }
+
+    // starts a search and chooses the rows of the givens
+    private boolean beginSearch(int[][] grid) {
+        if (grid.length != n) {
+            throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+        }
+        cover.beginSearch();
+        for (int row = 0; row < n; row++) {
+            if (grid[row].length != n) throw new IllegalArgumentException("row " + row + " does not have " + n + " cells");
+            for (int col = 0; col < n; col++) {
+                int val = grid[row][col];
+                if (val <= 0) continue;
+                if (val > n) {
+                    throw new IllegalArgumentException("value " + val + " at (" + row + "," + col
+                            + ") does not fit in a grid of size " + n);
+                }
+                if (!cover.choose((((row*n) + col) * n) + val - 1)) return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSolution(int[][] grid, int[][] solution) {
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                solution[row][col] = Math.max(grid[row][col], 0);
+            }
+        }
+        for (int i = 0; i < cover.getPickedRows(); i++) {
+            int index = cover.getPickedRow(i);
+            solution[index / (n*n)][(index / n) % n] = (index % n) + 1;
+        }
+    }
+
+    private static void addCells(List<List<Integer>> of, int[] cells, int id) {
+        for (int cell : cells) {
+            if (cell < 0 || cell >= of.size()) throw new IllegalArgumentException("cell " + cell + " does not exist");
+            if (of.get(cell).contains(id)) throw new IllegalArgumentException("cell " + cell + " is listed twice");
+            of.get(cell).add(id);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package SudokuSolver;
+
+import java.util.*;
+
+/**
+ * Solves many grids of one size at once by propagating the candidates of several boards side by side
+ * with the Vector API, see {@link VectorPropagation}. Every vector lane holds one board, so a block of
+ * as many boards as the preferred vector species has int lanes advances with every instruction.
+ * Propagation alone (naked and hidden singles) finishes most easy boards. Boards that are still open
+ * afterwards need a deep search and fall back to the scalar {@link BitmaskSudokuSolver}, starting from
+ * the propagated singles. Without the jdk.incubator.vector module every board is solved scalar.
+ * Candidate masks are ints, so grids up to 25x25 are supported.
+ * Instances are not thread safe, use {@link #forSize(int)} to get one per thread.
+ */
+public class VectorBatchSolver {
+
+    public static final int MAX_SIZE = 25;
+
+    private static final boolean VECTOR_MODULE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static final ThreadLocal<Map<Integer, VectorBatchSolver>> instances = ThreadLocal.withInitial(HashMap::new);
+
+    private final int n;
+    private final int lanes;
+    private final VectorPropagation propagation;    // null when solving scalar only
+    private final int[][] open;         // the propagated singles of a board that needs a search
+    private long propagated, searched;  // boards finished by propagation and boards handed to the scalar search
+
+    public VectorBatchSolver(int n) {
+        this(n, VECTOR_MODULE);
+    }
+
+    // vectorized can be turned off to test the scalar path with the module present
+    VectorBatchSolver(int n, boolean vectorized) {
+        int subgridSize = (int) Math.round(Math.sqrt(n));
+        if (n <= 0 || subgridSize * subgridSize != n) {
+            throw new IllegalArgumentException("grid size " + n + " is not a square number");
+        }
+        if (n > MAX_SIZE) {
+            throw new IllegalArgumentException("grid size " + n + " is larger than " + MAX_SIZE);
+        }
+        this.n = n;
+        this.open = new int[n][n];
+        if (vectorized) {
+            int[][] units = new int[3*n][n];
+            int[] filled = new int[3*n];
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    int cell = (row*n) + col;
+                    int subgrid = ((row/subgridSize)*subgridSize) + (col/subgridSize);
+                    units[row][filled[row]++] = cell;
+                    units[n + col][filled[n + col]++] = cell;
+                    units[2*n + subgrid][filled[2*n + subgrid]++] = cell;
+                }
+            }
+            this.propagation = new VectorPropagation(n, units);
+            this.lanes = VectorPropagation.lanes();
+        } else {
+            this.propagation = null;
+            this.lanes = 1;
+        }
+    }
+
+    /**
+     * @param n the side length of the grids
+     * @return the instance cached for the calling thread, created on first use
+     */
+    public static VectorBatchSolver forSize(int n) {
+        return instances.get().computeIfAbsent(n, VectorBatchSolver::new);
+    }
+
+    /**
+     * @return whether the jdk.incubator.vector module is available, otherwise every board is solved scalar
+     */
+    public static boolean isVectorized() {
+        return VECTOR_MODULE;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return the number of boards solved side by side, 1 when solving scalar
+     */
+    public int getLanes() {
+        return lanes;
+    }
+
+    /**
+     * @return the number of boards that propagation solved or proved unsolvable on its own
+     */
+    public long getPropagated() {
+        return propagated;
+    }
+
+    /**
+     * @return the number of boards that needed the scalar search
+     */
+    public long getSearched() {
+        return searched;
+    }
+
+    /**
+     * solves all grids and returns the solutions in the same order, unsolvable grids give null.
+     */
+    public List<int[][]> solveAll(List<int[][]> grids) {
+        int[][][] solutions = new int[grids.size()][][];
+        for (int[][] grid : grids) {
+            if (Grids.validate(grid) != n) {
+                throw new IllegalArgumentException("expected a grid of size " + n + " but got " + grid.length);
+            }
+        }
+        for (int first = 0; first < grids.size(); first += lanes) {
+            int count = Math.min(lanes, grids.size() - first);
+            if (propagation == null) {
+                solutions[first] = BitmaskSudokuSolver.forSize(n).solve(grids.get(first));
+                searched++;
+            } else {
+                solveBlock(grids, first, count, solutions);
+            }
+        }
+        return Arrays.asList(solutions);
+    }
+
+    // propagates the grids [first, first + count) together and searches the ones left open
+    private void solveBlock(List<int[][]> grids, int first, int count, int[][][] solutions) {
+        int[] candidates = propagation.candidates();
+        int all = (1 << n) - 1;
+        for (int cell = 0; cell < n*n; cell++) {
+            for (int lane = 0; lane < lanes; lane++) {
+                // unused lanes stay unconstrained, they never become invalid
+                int val = lane < count ? grids.get(first + lane)[cell / n][cell % n] : 0;
+                candidates[cell*lanes + lane] = val > 0 ? 1 << (val - 1) : all;
+            }
+        }
+        long invalid = propagation.propagate();
+
+        for (int lane = 0; lane < count; lane++) {
+            if ((invalid & (1L << lane)) != 0) {
+                propagated++;
+                continue;
+            }
+            boolean solved = true;
+            for (int cell = 0; cell < n*n; cell++) {
+                int mask = candidates[cell*lanes + lane];
+                boolean single = (mask & (mask - 1)) == 0;
+                solved &= single;
+                open[cell / n][cell % n] = single ? Integer.numberOfTrailingZeros(mask) + 1 : 0;
+            }
+            if (solved) {
+                int[][] solution = new int[n][];
+                for (int row = 0; row < n; row++) solution[row] = open[row].clone();
+                solutions[first + lane] = solution;
+                propagated++;
+            } else {
+                solutions[first + lane] = BitmaskSudokuSolver.forSize(n).solve(open);
+                searched++;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package SudokuSolver;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The lane-wise constraint propagation of {@link VectorBatchSolver}, the only class that touches the
+ * incubating Vector API so the rest of the solver loads without the jdk.incubator.vector module.
+ * The candidate masks of the boards of a block are interleaved by cell, one lane per board, so every vector
+ * instruction works on the same cell of all boards at once.
+ */
+final class VectorPropagation {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int n;
+    private final int all;
+    private final int[][] units;
+    private final int[] candidates;     // the candidates of lane l in cell c at c*lanes + l
+
+    VectorPropagation(int n, int[][] units) {
+        this.n = n;
+        this.all = (1 << n) - 1;
+        this.units = units;
+        this.candidates = new int[n*n*SPECIES.length()];
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * @return the candidate masks, interleaved by cell
+     */
+    int[] candidates() {
+        return candidates;
+    }
+
+    /**
+     * eliminates the values of the naked singles from their units and fixes hidden singles until nothing
+     * changes anymore.
+     * @return a bit for every lane whose board turned out to be contradicting
+     */
+    long propagate() {
+        int lanes = SPECIES.length();
+        IntVector zero = IntVector.zero(SPECIES);
+        VectorMask<Integer> invalid = SPECIES.maskAll(false);
+        VectorMask<Integer> changed;
+        do {
+            changed = SPECIES.maskAll(false);
+            for (int[] unit : units) {
+                IntVector once = zero, twice = zero, fixed = zero, fixedTwice = zero;
+                for (int cell : unit) {
+                    IntVector v = IntVector.fromArray(SPECIES, candidates, cell*lanes);
+                    invalid = invalid.or(v.eq(0));
+                    twice = twice.or(once.and(v));
+                    once = once.or(v);
+                    // v has at most one bit, the empty lanes are already invalid
+                    IntVector single = zero.blend(v, v.and(v.sub(1)).eq(0));
+                    fixedTwice = fixedTwice.or(fixed.and(single));
+                    fixed = fixed.or(single);
+                }
+                invalid = invalid.or(once.compare(VectorOperators.NE, all)).or(fixedTwice.compare(VectorOperators.NE, 0));
+                IntVector hidden = once.lanewise(VectorOperators.AND_NOT, twice);
+
+                for (int cell : unit) {
+                    IntVector v = IntVector.fromArray(SPECIES, candidates, cell*lanes);
+                    VectorMask<Integer> open = v.and(v.sub(1)).compare(VectorOperators.NE, 0);
+                    IntVector reduced = v.lanewise(VectorOperators.AND_NOT, fixed);
+                    IntVector only = reduced.and(hidden);
+                    // a cell that is the only place of two values
+                    invalid = invalid.or(only.and(only.sub(1)).compare(VectorOperators.NE, 0).and(open));
+                    reduced = reduced.blend(only, only.compare(VectorOperators.NE, 0));
+                    IntVector next = v.blend(reduced, open);
+                    changed = changed.or(next.compare(VectorOperators.NE, v));
+                    next.intoArray(candidates, cell*lanes);
+                }
+            }
+            // contradicting boards keep shrinking until they are empty, leave them alone
+        } while (changed.andNot(invalid).anyTrue());
+        return invalid.toLong();
+    }
+}
@@ -0,0 +1,72 @@
+package SudokuSolver;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PuzzleIOTests {
+
+    private static PuzzleReader readerOf(String input) {
+        return new PuzzleReader(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void testReadsLineFormat() throws IOException {
+        String puzzle = "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+        try (PuzzleReader reader = readerOf(puzzle + "\n\n" + puzzle.replace('.', '0') + "\n")) {
+            int[][] first = reader.read();
+            assertThat(first.length).isEqualTo(9);
+            assertThat(first[0]).containsExactly(4, 0, 0, 0, 0, 0, 8, 0, 5);
+            assertThat(reader.read()).isDeepEqualTo(first);
+            assertThat(reader.read()).isNull();
+        }
+    }
+
+    @Test
+    public void testReadsHeaderAndGridFormat() throws IOException {
+        try (PuzzleReader reader = PuzzleReader.open(Path.of("src/test/data/sudoku_instances/pruning/size3_level50_puzzle1.txt"))) {
+            int[][] grid = reader.read();
+            assertThat(grid.length).isEqualTo(9);
+            assertThat(grid[0]).containsExactly(0, 1, 4, 2, 0, 9, 6, 5, 7);
+            assertThat(grid[8]).containsExactly(0, 0, 2, 0, 7, 0, 9, 0, 5);
+            assertThat(reader.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void testWrittenSolutionsReadBack() throws IOException {
+        List<int[][]> solutions = new ArrayList<>();
+        try (PuzzleReader reader = PuzzleReader.open(Path.of("src/test/data/sudoku_instances/var_selection/size4_level45_puzzle1.txt"))) {
+            solutions.add(ArraySudokuDLX.forSize(16).solve(reader.read()));
+        }
+        solutions.add(new int[9][9]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PuzzleWriter writer = new PuzzleWriter(Channels.newChannel(out))) {
+            for (int[][] solution : solutions) writer.write(solution);
+            writer.write(null);
+        }
+        String written = out.toString(StandardCharsets.US_ASCII);
+        assertThat(written.split("\n", -1)).hasSize(4);
+
+        try (PuzzleReader reader = readerOf(written)) {
+            assertThat(reader.read()).isDeepEqualTo(solutions.get(0));
+            assertThat(reader.read()).isDeepEqualTo(solutions.get(1));
+            assertThat(reader.read()).isNull();
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        assertThatThrownBy(() -> readerOf("1234567890123456789").read()).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> readerOf("3 1 1 2 3").read()).isInstanceOf(IOException.class);
+    }
+}
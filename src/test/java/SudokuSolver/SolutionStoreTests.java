@@ -0,0 +1,193 @@
+package SudokuSolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class SolutionStoreTests {
+
+    @TempDir
+    Path dir;
+
+    // the instance sets repeat some puzzles, every grid is only returned once
+    private static List<int[][]> levels(int size) throws IOException {
+        Set<String> seen = new HashSet<>();
+        return LoadGenerator.loadInstances().stream()
+                .filter(grid -> grid.length == size && seen.add(Arrays.deepToString(grid)))
+                .collect(Collectors.toList());
+    }
+
+    private static int[][] unsolvable() {
+        int[][] grid = new int[9][9];
+        grid[0][0] = grid[0][1] = 7;
+        return grid;
+    }
+
+    @Test
+    public void testResultsSurviveReopening() throws IOException {
+        Path file = dir.resolve("solutions.store");
+        List<int[][]> levels = levels(9).subList(0, 50);
+        try (SolutionStore store = SolutionStore.open(file, 1000, 1 << 20)) {
+            for (int[][] level : levels) assertThat(store.solve(level, new int[9][9])).isTrue();
+            assertThat(store.solve(unsolvable(), new int[9][9])).isFalse();
+            assertThat(store.getMisses()).isEqualTo(levels.size() + 1);
+            assertThat(store.size()).isEqualTo(levels.size() + 1);
+        }
+
+        try (SolutionStore store = SolutionStore.open(file)) {
+            assertThat(store.size()).isEqualTo(levels.size() + 1);
+            for (int[][] level : levels) {
+                SolveResult stored = store.lookup(level);
+                assertThat(stored.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+                assertThat(stored.getSolution()).isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+            }
+            assertThat(store.lookup(unsolvable()).getStatus()).isEqualTo(SolveResult.Status.UNSOLVABLE);
+            int[][] other = unsolvable();
+            other[0][1] = 8;
+            assertThat(store.lookup(other)).isNull();
+            assertThat(store.getHits()).isEqualTo(levels.size() + 1);
+        }
+
+        Files.write(dir.resolve("other"), new byte[128]);
+        assertThatThrownBy(() -> SolutionStore.open(dir.resolve("other"))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testDamagedRecordsAreSolvedAgain() throws IOException {
+        Path file = dir.resolve("solutions.store");
+        int[][] level = levels(9).get(0);
+        int[][] expected = ArraySudokuDLX.forSize(9).solve(level);
+        try (SolutionStore store = SolutionStore.open(file, 16, 4096)) {
+            store.solve(level, new int[9][9]);
+        }
+
+        // flip the last solution byte of the only record, as if its page never reached the disk
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long last = channel.size() - 4096 + 8 + 2*81 - 1;
+            ByteBuffer cell = ByteBuffer.allocate(1);
+            channel.read(cell, last);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (cell.get(0) ^ 0x0F)}), last);
+        }
+
+        try (SolutionStore store = SolutionStore.open(file)) {
+            assertThat(store.lookup(level)).isNull();
+            assertThat(store.getCorrupted()).isEqualTo(1);
+            int[][] solution = new int[9][9];
+            assertThat(store.solve(level, solution)).isTrue();
+            assertThat(solution).isDeepEqualTo(expected);
+            assertThat(store.lookup(level).getSolution()).isDeepEqualTo(expected);
+            assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testStaleHeaderIsRecoveredFromTheIndex() throws IOException {
+        Path file = dir.resolve("solutions.store");
+        List<int[][]> levels = levels(9).subList(0, 20);
+        try (SolutionStore store = SolutionStore.open(file, 100, 1 << 16)) {
+            for (int[][] level : levels.subList(0, 10)) store.solve(level, new int[9][9]);
+        }
+
+        // rewind the tail and the count, as if the header page was lost in a crash
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(16), 24);
+        }
+
+        try (SolutionStore store = SolutionStore.open(file)) {
+            assertThat(store.size()).isEqualTo(10);
+            assertThat(store.getFill()).isPositive();
+            for (int[][] level : levels.subList(10, 20)) assertThat(store.solve(level, new int[9][9])).isTrue();
+            assertThat(store.size()).isEqualTo(20);
+            for (int[][] level : levels) {
+                assertThat(store.lookup(level).getSolution()).isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+            }
+            assertThat(store.getCorrupted()).isZero();
+        }
+    }
+
+    @Test
+    public void testBatchWorkersShareTheStore() throws IOException {
+        List<int[][]> levels = levels(9);
+        levels.addAll(levels(16).subList(0, 20));
+        try (SolutionStore store = SolutionStore.open(dir.resolve("solutions.store"), 2000, 1 << 20);
+             BatchSolver batch = new BatchSolver(4)) {
+            batch.setStore(store);
+            List<int[][]> first = batch.solveAll(levels);
+            assertThat(store.getMisses()).isEqualTo(levels.size());
+            assertThat(store.size()).isEqualTo(levels.size());
+
+            List<int[][]> second = batch.solveAll(levels);
+            assertThat(store.getHits()).isEqualTo(levels.size());
+            for (int i = 0; i < levels.size(); i++) {
+                assertThat(second.get(i)).isDeepEqualTo(first.get(i));
+                assertThat(second.get(i)).isDeepEqualTo(ArraySudokuDLX.forSize(levels.get(i).length).solve(levels.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testFullStoreDropsResults() throws IOException {
+        List<int[][]> levels = levels(9).subList(0, 5);
+        try (SolutionStore store = SolutionStore.open(dir.resolve("solutions.store"), 100, 2*176)) {
+            for (int[][] level : levels) {
+                int[][] solution = new int[9][9];
+                assertThat(store.solve(level, solution)).isTrue();
+                assertThat(solution).isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+            }
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.getDropped()).isEqualTo(3);
+            assertThat(store.getFill()).isEqualTo(1.0);
+            assertThat(store.lookup(levels.get(4))).isNull();
+        }
+        assertThatThrownBy(() -> SolutionStore.open(dir.resolve("huge.store"), 1000, 1L << 32))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCapacityLimitsSmallRecords() throws IOException {
+        // 4x4 grids with a single given, their records are small enough that the data area could take all of them
+        List<int[][]> grids = new ArrayList<>();
+        for (int cell = 0; cell < 16; cell++) {
+            for (int val = 1; val <= 4; val++) {
+                int[][] grid = new int[4][4];
+                grid[cell / 4][cell % 4] = val;
+                grids.add(grid);
+            }
+        }
+        Path file = dir.resolve("solutions.store");
+        try (SolutionStore store = SolutionStore.open(file, 10, 1 << 16)) {
+            for (int[][] grid : grids) assertThat(store.solve(grid, new int[4][4])).isTrue();
+            assertThat(store.size()).isEqualTo(10);
+            assertThat(store.getDropped()).isEqualTo(grids.size() - 10);
+            assertThat(store.getFill()).isLessThan(0.1);
+            for (int i = 0; i < grids.size(); i++) {
+                if (i < 10) assertThat(store.lookup(grids.get(i))).isNotNull();
+                else assertThat(store.lookup(grids.get(i))).isNull();
+            }
+        }
+
+        // the capacity is kept in the file
+        try (SolutionStore store = SolutionStore.open(file, 1000, 1 << 20)) {
+            assertThat(store.getCapacity()).isEqualTo(10);
+            assertThat(store.put(grids.get(10), null)).isFalse();
+        }
+        try (SolutionStore store = SolutionStore.open(file)) {
+            assertThat(store.getCapacity()).isEqualTo(10);
+            assertThat(store.put(grids.get(11), null)).isFalse();
+            assertThat(store.size()).isEqualTo(10);
+        }
+    }
+}
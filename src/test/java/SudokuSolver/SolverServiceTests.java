@@ -0,0 +1,137 @@
+package SudokuSolver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SolverServiceTests {
+
+    private SolverService service;
+    private URI base;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void start() throws IOException {
+        service = new SolverService(new InetSocketAddress("localhost", 0), 2, 1, Duration.ofSeconds(30), Solver.Engine.PIPELINE);
+        service.start();
+        base = URI.create("http://localhost:" + service.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void stop() {
+        service.close();
+    }
+
+    private static int[][] level() throws IOException {
+        try (PuzzleReader reader = PuzzleReader.open(Path.of("src/test/data/sudoku_instances/pruning/size3_level50_puzzle1.txt"))) {
+            return reader.read();
+        }
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(base.resolve(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testSolvesJsonRequests() throws Exception {
+        int[][] level = level();
+        HttpResponse<String> response = post("/solve", "{\"grid\": " + Arrays.deepToString(level) + "}");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).startsWith("{\"status\":\"SOLVED\"");
+        assertThat(SolverService.parseGrid(response.body().replace("\"solution\"", "\"grid\"")))
+                .isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+
+        response = post("/solve", "{\"grid\": " + Arrays.deepToString(new int[9][9]) + ", \"timeoutMillis\": 0}");
+        assertThat(response.body()).startsWith("{\"status\":\"TIMED_OUT\"");
+
+        assertThat(post("/solve", "{\"grid\": [[1, 2], [3]]}").statusCode()).isEqualTo(400);
+        assertThat(post("/solve", "{\"puzzle\": []}").statusCode()).isEqualTo(400);
+
+        HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(base.resolve("/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(metrics.body()).contains("\"requests\":4", "\"solves\":2", "\"solved\":1", "\"timedOut\":1");
+    }
+
+    @Test
+    public void testStreamsBatchesOfPackedBoards() throws Exception {
+        int[][] level = level();
+        int[][] contradicting = new int[9][9];
+        contradicting[0][0] = contradicting[0][8] = 5;
+        List<int[][]> grids = Arrays.asList(level, contradicting, new int[9][9]);
+        int boardBytes = PackedBoards.boardBytes(9, PackedBoards.Format.NIBBLE);
+        ByteBuffer boards = PackedBoards.allocate(grids.size(), 9, PackedBoards.Format.NIBBLE, false);
+        for (int i = 0; i < grids.size(); i++) PackedBoards.pack(grids.get(i), boards, i*boardBytes, PackedBoards.Format.NIBBLE);
+
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(base.resolve("/batch?n=9&format=NIBBLE"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(boards.array())).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).isEqualTo(200);
+        ByteBuffer solved = ByteBuffer.wrap(response.body());
+        assertThat(solved.limit()).isEqualTo(grids.size() * (boardBytes + 1));
+
+        assertThat(solved.get(0)).isEqualTo((byte) SolveResult.Status.SOLVED.ordinal());
+        assertThat(PackedBoards.unpack(solved, 1, 9, PackedBoards.Format.NIBBLE)).isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+        assertThat(solved.get(boardBytes + 1)).isEqualTo((byte) SolveResult.Status.INVALID_INPUT.ordinal());
+        assertThat(PackedBoards.unpack(solved, boardBytes + 2, 9, PackedBoards.Format.NIBBLE)).isDeepEqualTo(contradicting);
+        assertThat(solved.get(2*(boardBytes + 1))).isEqualTo((byte) SolveResult.Status.SOLVED.ordinal());
+    }
+
+    @Test
+    public void testRejectsBatchSizesThatAreNotGridSizes() throws Exception {
+        for (String n : new String[]{"0", "-4", "10", "121"}) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/batch?n=" + n))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[81])).build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(400);
+            assertThat(response.body()).contains("INVALID_INPUT");
+        }
+        // the admission permits were released again
+        assertThat(post("/solve", "{\"grid\": " + Arrays.deepToString(level()) + "}").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testRejectsRequestsOverTheAdmissionLimit() throws Exception {
+        // a batch request whose body never arrives holds the only admission permit
+        try (Socket stalled = new Socket("localhost", service.getAddress().getPort())) {
+            OutputStream out = stalled.getOutputStream();
+            out.write(("POST /batch?n=9 HTTP/1.1\r\nHost: localhost\r\nContent-Length: 81\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (!client.send(HttpRequest.newBuilder(base.resolve("/metrics")).build(), HttpResponse.BodyHandlers.ofString())
+                    .body().contains("\"inFlight\":1")) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.sleep(10);
+            }
+
+            HttpResponse<String> response = post("/solve", "{\"grid\": " + Arrays.deepToString(level()) + "}");
+            assertThat(response.statusCode()).isEqualTo(503);
+            assertThat(response.headers().firstValue("Retry-After")).isPresent();
+        }
+    }
+
+    @Test
+    public void testLoadGeneratorReportsLatencies() throws Exception {
+        LoadGenerator.Report report = LoadGenerator.run(base, Collections.singletonList(level()), 1, 20);
+        assertThat(report.getRequests()).isEqualTo(20);
+        assertThat(report.getSolved()).isEqualTo(20);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getLatencyMicros(50)).isPositive().isLessThanOrEqualTo(report.getLatencyMicros(99));
+        assertThat(report.getThroughput()).isPositive();
+    }
+}
@@ -6,9 +6,24 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class SudokuTests {
 
@@ -39,6 +54,27 @@ public class SudokuTests {
         return sudoku;
     }
 
+    private static List<int[][]> parseLevels(String sudokuDirectoryPath) {
+        File sudokuDirectory = new File(sudokuDirectoryPath);
+        String[] sudokuLevels = sudokuDirectory.list();
+        Arrays.sort(sudokuLevels);
+
+        List<int[][]> levels = new ArrayList<>();
+        for (String levelName : sudokuLevels) {
+            levels.add(parseLevel(sudokuDirectoryPath + levelName));
+        }
+        return levels;
+    }
+
+    private static boolean respectsGivens(int[][] level, int[][] solution) {
+        for (int row = 0; row < level.length; row++) {
+            for (int col = 0; col < level.length; col++) {
+                if (level[row][col] > 0 && level[row][col] != solution[row][col]) return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean isValid(int[][] board, int row, int column) {
         // test row
         int occurrences = 0;
@@ -139,4 +175,773 @@ public class SudokuTests {
         }
     }
 
+    @Test
+    public void testArrayDLXWithBasicLevelFiles() {
+        for (int[][] level : parseLevels(sudokuInstancesPath + "basic/")) {
+            int[][] solution = ArraySudokuDLX.forSize(level.length).solve(level);
+            assertThat(solution).isDeepEqualTo(SudokuDLX.solve(level));
+        }
+    }
+    @Test
+    public void testArrayDLXWithPruningAndVarSelectionLevelFiles() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        for (int[][] level : levels) {
+            int[][] solution = ArraySudokuDLX.forSize(level.length).solve(level);
+            assertThat(isSolutionValid(solution)).isTrue();
+            assertThat(respectsGivens(level, solution)).isTrue();
+        }
+    }
+    @Test
+    public void testArrayDLXRejectsContradictingGivens() {
+        int[][] level = new int[9][9];
+        level[0][0] = 5;
+        level[0][8] = 5;
+        assertThat(ArraySudokuDLX.forSize(9).solve(level)).isNull();
+    }
+
+    @Test
+    public void testBitmaskSolverWithBasicLevelFiles() {
+        for (int[][] level : parseLevels(sudokuInstancesPath + "basic/")) {
+            int[][] solution = BitmaskSudokuSolver.forSize(level.length).solve(level);
+            assertThat(solution).isDeepEqualTo(SudokuDLX.solve(level));
+        }
+    }
+    @Test
+    public void testBitmaskSolverWithPruningAndVarSelectionLevelFiles() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        for (int[][] level : levels) {
+            int[][] solution = BitmaskSudokuSolver.forSize(level.length).solve(level);
+            assertThat(solution == null).isEqualTo(SudokuDLX.solve(level) == null);
+            assertThat(isSolutionValid(solution)).isTrue();
+            assertThat(respectsGivens(level, solution)).isTrue();
+        }
+    }
+    @Test
+    public void testBitmaskSolverRejectsContradictingGivens() {
+        int[][] level = new int[9][9];
+        level[0][0] = 5;
+        level[8][0] = 5;
+        assertThat(BitmaskSudokuSolver.forSize(9).solve(level)).isNull();
+    }
+
+    @Test
+    public void testBatchSolverKeepsInputOrder() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        List<int[][]> expected = new ArrayList<>();
+        for (int[][] level : levels) {
+            expected.add(ArraySudokuDLX.forSize(level.length).solve(level));
+        }
+
+        try (BatchSolver batch = new BatchSolver(4, 8)) {
+            assertThat(batch.solveAll(levels)).containsExactlyElementsOf(expected);
+
+            List<int[][]> streamed = new ArrayList<>();
+            batch.solveAll(levels.stream(), streamed::add);
+            assertThat(streamed).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void testArrayDLXParallelSearch() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int[][] level : levels) {
+                ArraySudokuDLX dlx = ArraySudokuDLX.forSize(level.length);
+                int[][] solution = dlx.solveParallel(level, pool, 2);
+                assertThat(solution == null).isEqualTo(dlx.solve(level) == null);
+                assertThat(isSolutionValid(solution)).isTrue();
+                assertThat(respectsGivens(level, solution)).isTrue();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBasicLevelFilesAreUnique() {
+        for (int[][] level : parseLevels(sudokuInstancesPath + "basic/")) {
+            assertThat(SudokuDLX.isUnique(level)).isTrue();
+            assertThat(ArraySudokuDLX.forSize(level.length).isUnique(level)).isTrue();
+        }
+    }
+    @Test
+    public void testCountSolutionsStopsAtLimit() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        for (int[][] level : levels) {
+            int count = ArraySudokuDLX.forSize(level.length).countSolutions(level, 3);
+            assertThat(count).isBetween(0, 3);
+            assertThat(count).isEqualTo(SudokuDLX.countSolutions(level, 3));
+            assertThat(count > 0).isEqualTo(SudokuDLX.solve(level) != null);
+        }
+
+        int[][] empty = new int[9][9];
+        assertThat(ArraySudokuDLX.forSize(9).countSolutions(empty, 100)).isEqualTo(100);
+        assertThat(ArraySudokuDLX.forSize(9).isUnique(empty)).isFalse();
+    }
+
+    @Test
+    public void testSolverEnginesSolveIntoBuffer() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            int[][] solution = null;
+            for (int[][] level : levels) {
+                Solver solver = Solver.forSize(level.length, engine);
+                if (solution == null || solution.length != level.length) {
+                    solution = new int[level.length][level.length];
+                }
+                assertThat(solver.solve(level, solution)).isTrue();
+                assertThat(isSolutionValid(solution)).isTrue();
+                assertThat(respectsGivens(level, solution)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void testArrayDLXTemplateIsRestoredBetweenGrids() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "var_selection/");
+        int[][] contradicting = new int[16][16];
+        contradicting[0][0] = 3;
+        contradicting[1][1] = 3;
+
+        ArraySudokuDLX reused = new ArraySudokuDLX(16);
+        for (int[][] level : levels) {
+            if (level.length != 16) continue;
+            assertThat(reused.solve(contradicting)).isNull();
+            reused.countSolutions(level, 2);
+            assertThat(reused.solve(level)).isDeepEqualTo(new ArraySudokuDLX(16).solve(level));
+        }
+    }
+
+    @Test
+    public void testArrayDLXSearchCanBePausedAndResumed() {
+        for (int[][] level : parseLevels(sudokuInstancesPath + "var_selection/")) {
+            ArraySudokuDLX dlx = new ArraySudokuDLX(level.length);
+            int[][] expected = dlx.solve(level);
+
+            assertThat(dlx.beginSearch(level)).isTrue();
+            SearchStatus status;
+            do {
+                status = dlx.continueSearch(1);
+            } while (status == SearchStatus.PAUSED);
+
+            assertThat(status).isEqualTo(expected == null ? SearchStatus.EXHAUSTED : SearchStatus.FOUND);
+            if (expected != null) {
+                int[][] solution = new int[level.length][level.length];
+                dlx.writeSolution(solution);
+                assertThat(solution).isDeepEqualTo(expected);
+            }
+            dlx.endSearch();
+        }
+    }
+
+    @Test
+    public void testLargeLevelFiles() {
+        for (int[][] level : parseLevels(sudokuInstancesPath + "large/")) {
+            int[][] solution = ArraySudokuDLX.forSize(level.length).solve(level);
+            assertThat(isSolutionValid(solution)).isTrue();
+            assertThat(respectsGivens(level, solution)).isTrue();
+
+            if (level.length <= BitmaskSudokuSolver.MAX_SIZE) {
+                solution = BitmaskSudokuSolver.forSize(level.length).solve(level);
+                assertThat(isSolutionValid(solution)).isTrue();
+                assertThat(respectsGivens(level, solution)).isTrue();
+            }
+        }
+    }
+    @Test
+    public void testLargeBoardMemoryPerSolve() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int[][] level = parseLevel(sudokuInstancesPath + "large/size10_level30_puzzle1.txt");
+
+        // everything a 100x100 solve allocates, including building the structure for the grid size
+        long before = threads.getCurrentThreadAllocatedBytes();
+        int[][] solution = new ArraySudokuDLX(100).solve(level);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(isSolutionValid(solution)).isTrue();
+        assertThat(allocated).isLessThan(48L << 20);
+    }
+    @Test
+    public void testSolveStatsAndMetrics() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "var_selection/");
+
+        SolverMetrics metrics = new SolverMetrics();
+        SolveStats stats = new SolveStats();
+        for (Solver.Engine engine : Arrays.asList(Solver.Engine.ARRAY_DLX, Solver.Engine.BITMASK)) {
+            for (int[][] level : levels) {
+                int[][] solution = new int[level.length][level.length];
+                assertThat(Solver.forSize(level.length, engine).solve(level, solution, stats)).isTrue();
+                assertThat(stats.isSolved()).isTrue();
+                assertThat(stats.getNodes()).isPositive();
+                // the bitmask solver keeps the assignments of the solution, the array links are always restored
+                assertThat(stats.getCovers()).isGreaterThanOrEqualTo(stats.getUncovers());
+                if (engine == Solver.Engine.ARRAY_DLX) {
+                    assertThat(stats.getCovers()).isEqualTo(stats.getUncovers());
+                    assertThat(stats.getMaxDepth()).isPositive();
+                }
+                assertThat(stats.getWallNanos()).isPositive();
+                metrics.record(stats);
+            }
+        }
+        assertThat(metrics.getSolves()).isEqualTo(2L * levels.size());
+        assertThat(metrics.getSolved()).isEqualTo(metrics.getSolves());
+
+        // solving without stats afterwards must not touch the last stats object
+        long nodes = stats.getNodes();
+        ArraySudokuDLX.forSize(levels.get(0).length).solve(levels.get(0));
+        assertThat(stats.getNodes()).isEqualTo(nodes);
+
+        try (BatchSolver batch = new BatchSolver(2)) {
+            SolverMetrics batchMetrics = new SolverMetrics();
+            batch.setMetrics(batchMetrics);
+            batch.solveAll(levels);
+            assertThat(batchMetrics.getSolves()).isEqualTo(levels.size());
+            assertThat(batchMetrics.getNodes()).isPositive();
+        }
+    }
+
+    @Test
+    public void testSolveBudgets() {
+        int[][] level = parseLevel(sudokuInstancesPath + "basic/" + new File(sudokuInstancesPath + "basic/").list()[0]);
+        int[][] empty = new int[9][9];
+        int[][] contradicting = new int[9][9];
+        contradicting[0][0] = contradicting[0][8] = 5;
+
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            Solver solver = Solver.forSize(9, engine);
+
+            SolveResult solved = solver.solve(level, SolveBudget.ofTimeout(Duration.ofMinutes(1)));
+            assertThat(solved.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+            assertThat(isSolutionValid(solved.getSolution())).isTrue();
+            assertThat(respectsGivens(level, solved.getSolution())).isTrue();
+
+            assertThat(solver.solve(empty, SolveBudget.ofMaxNodes(1)).getStatus()).isEqualTo(SolveResult.Status.TIMED_OUT);
+            assertThat(solver.solve(empty, SolveBudget.ofTimeout(Duration.ZERO)).getStatus()).isEqualTo(SolveResult.Status.TIMED_OUT);
+            assertThat(solver.solve(new int[4][4], SolveBudget.unlimited()).getStatus()).isEqualTo(SolveResult.Status.INVALID_INPUT);
+
+            SolveBudget cancelled = SolveBudget.unlimited();
+            cancelled.cancel();
+            assertThat(solver.solve(empty, cancelled).getStatus()).isEqualTo(SolveResult.Status.CANCELLED);
+
+            Thread.currentThread().interrupt();
+            try {
+                assertThat(solver.solve(empty, SolveBudget.unlimited()).getStatus()).isEqualTo(SolveResult.Status.CANCELLED);
+            } finally {
+                Thread.interrupted();
+            }
+        }
+
+        // givens that repeat in a unit are rejected before any engine starts, even on a completely filled grid
+        int[][] ones = new int[4][4];
+        for (int[] row : ones) Arrays.fill(row, 1);
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            SolveResult result = Solver.forSize(9, engine).solve(contradicting, SolveBudget.unlimited());
+            assertThat(result.getStatus()).isEqualTo(SolveResult.Status.INVALID_INPUT);
+            assertThat(result.getMessage()).contains("repeats in its row");
+            assertThat(Solver.forSize(4, engine).solve(ones, SolveBudget.unlimited()).getStatus()).isEqualTo(SolveResult.Status.INVALID_INPUT);
+            assertThat(Solver.forSize(4, engine).solve(ones, new int[4][4])).isFalse();
+        }
+        assertThat(SudokuDLX.solve(ones)).isNull();
+        assertThat(SudokuDLX.countSolutions(ones, 2)).isZero();
+        assertThat(SudokuDLX.isUnique(ones)).isFalse();
+        assertThat(BacktrackingSudokuSolver.solve(contradicting)).isNull();
+        assertThat(BacktrackingSudokuSolver.solve(contradicting, SolveBudget.unlimited())).isNull();
+        assertThatThrownBy(() -> Grids.validateGivens(contradicting)).isInstanceOf(IllegalArgumentException.class);
+        Grids.validateGivens(level);
+    }
+
+    @Test
+    public void testPresolvePipelineStages() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "basic/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "pruning/"));
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        PresolvePipeline.Counters counters = new PresolvePipeline.Counters();
+        for (int[][] level : levels) {
+            PresolvePipeline pipeline = new PresolvePipeline(level.length, counters);
+            int[][] solution = new int[level.length][level.length];
+            assertThat(pipeline.solve(level, solution)).isTrue();
+            assertThat(isSolutionValid(solution)).isTrue();
+            assertThat(respectsGivens(level, solution)).isTrue();
+        }
+        assertThat(counters.getReceived()).isEqualTo(levels.size());
+        assertThat(counters.getSolvedByLogic() + counters.getSearched()).isEqualTo(levels.size());
+        assertThat(counters.getSolvedByLogic()).isPositive();
+
+        int[][] duplicate = new int[9][9];
+        duplicate[0][0] = duplicate[2][2] = 7;
+        assertThat(new PresolvePipeline(9, counters).solve(duplicate, new int[9][9])).isFalse();
+        assertThat(counters.getRejected()).isEqualTo(1);
+
+        // a cell whose row and column together already hold every value
+        int[][] blocked = new int[9][9];
+        for (int i = 1; i < 9; i++) {
+            blocked[0][i] = i;
+            if (i == 8) blocked[i][0] = 9;
+        }
+        assertThat(new PresolvePipeline(9, counters).solve(blocked, new int[9][9])).isFalse();
+        assertThat(counters.getRefutedByLogic()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSolutionCacheMapsEquivalentPuzzles() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "var_selection/");
+        int[][] level = levels.get(0);
+        int n = level.length, s = (int) Math.round(Math.sqrt(n));
+
+        SolutionCache cache = new SolutionCache(2);
+        assertThat(isSolutionValid(cache.solve(level))).isTrue();
+        assertThat(cache.getMisses()).isEqualTo(1);
+
+        // relabeled digits and transposition are always recognized
+        int[][] relabeled = new int[n][n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                relabeled[col][row] = level[row][col] <= 0 ? 0 : n + 1 - level[row][col];
+            }
+        }
+        int[][] solution = cache.solve(relabeled);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(isSolutionValid(solution)).isTrue();
+        assertThat(respectsGivens(relabeled, solution)).isTrue();
+
+        // swapped bands and rows may miss on ties but must still map back to a solution of the variant
+        int[][] permuted = new int[n][n];
+        for (int row = 0; row < n; row++) {
+            int band = (row / s + 1) % s, within = s - 1 - row % s;
+            permuted[(band*s) + within] = level[row].clone();
+        }
+        solution = cache.solve(permuted);
+        assertThat(isSolutionValid(solution)).isTrue();
+        assertThat(respectsGivens(permuted, solution)).isTrue();
+
+        int[][] unsolvable = new int[n][n];
+        unsolvable[0][0] = unsolvable[0][1] = 1;
+        assertThat(cache.solve(unsolvable)).isNull();
+        assertThat(cache.solve(unsolvable)).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(cache.getMisses() - 2);
+    }
+
+    @Test
+    public void testSolveInPlaceOnPackedBoards() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.removeIf(level -> level.length != 9);
+        assertThat(levels).isNotEmpty();
+
+        for (PackedBoards.Format format : PackedBoards.Format.values()) {
+            int boardBytes = PackedBoards.boardBytes(9, format);
+            for (Solver.Engine engine : Arrays.asList(Solver.Engine.ARRAY_DLX, Solver.Engine.BITMASK, Solver.Engine.DLX)) {
+                ByteBuffer boards = PackedBoards.allocate(levels.size(), 9, format, format == PackedBoards.Format.BYTE);
+                for (int i = 0; i < levels.size(); i++) {
+                    PackedBoards.pack(levels.get(i), boards, i * boardBytes, format);
+                }
+                Solver solver = Solver.forSize(9, engine);
+                for (int i = 0; i < levels.size(); i++) {
+                    assertThat(solver.solveInPlace(boards, i * boardBytes, format)).isTrue();
+                    int[][] solution = PackedBoards.unpack(boards, i * boardBytes, 9, format);
+                    assertThat(isSolutionValid(solution)).isTrue();
+                    assertThat(respectsGivens(levels.get(i), solution)).isTrue();
+                }
+            }
+        }
+
+        ByteBuffer boards = PackedBoards.allocate(levels.size(), 9, PackedBoards.Format.NIBBLE, true);
+        int boardBytes = PackedBoards.boardBytes(9, PackedBoards.Format.NIBBLE);
+        for (int i = 0; i < levels.size(); i++) {
+            PackedBoards.pack(levels.get(i), boards, i * boardBytes, PackedBoards.Format.NIBBLE);
+        }
+        try (BatchSolver batch = new BatchSolver(4)) {
+            boolean[] solved = batch.solveAll(boards, 9, PackedBoards.Format.NIBBLE);
+            assertThat(solved).hasSize(levels.size()).doesNotContain(false);
+        }
+        for (int i = 0; i < levels.size(); i++) {
+            int[][] solution = PackedBoards.unpack(boards, i * boardBytes, 9, PackedBoards.Format.NIBBLE);
+            assertThat(isSolutionValid(solution)).isTrue();
+            assertThat(respectsGivens(levels.get(i), solution)).isTrue();
+        }
+        assertThatThrownBy(() -> PackedBoards.allocate(1, 16, PackedBoards.Format.NIBBLE, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testPuzzleGeneratorIsUniqueAndReproducible() {
+        List<PuzzleGenerator.Puzzle> puzzles;
+        try (PuzzleGenerator generator = new PuzzleGenerator(9, 4)) {
+            puzzles = generator.generate(40, 1234);
+            PuzzleGenerator.Puzzle again = generator.generate(puzzles.get(17).getSeed());
+            assertThat(again.getGrid()).isEqualTo(puzzles.get(17).getGrid());
+        }
+        try (PuzzleGenerator generator = new PuzzleGenerator(9, 1)) {
+            List<PuzzleGenerator.Puzzle> sequential = generator.generate(40, 1234);
+            for (int i = 0; i < puzzles.size(); i++) {
+                assertThat(sequential.get(i).getGrid()).isEqualTo(puzzles.get(i).getGrid());
+            }
+        }
+
+        for (PuzzleGenerator.Puzzle puzzle : puzzles) {
+            int[][] grid = puzzle.getGrid();
+            assertThat(isSolutionValid(puzzle.getSolution())).isTrue();
+            assertThat(respectsGivens(grid, puzzle.getSolution())).isTrue();
+            assertThat(ArraySudokuDLX.forSize(9).isUnique(grid)).isTrue();
+            assertThat(puzzle.getGivens()).isLessThan(40);
+
+            LogicalSolver logic = new LogicalSolver(9);
+            logic.load(grid);
+            boolean singles = logic.propagate(false) == LogicalSolver.Outcome.SOLVED;
+            assertThat(singles).isEqualTo(puzzle.getDifficulty() == PuzzleGenerator.Difficulty.EASY);
+        }
+    }
+
+    @Test
+    public void testArrayDLXStreamsAllSolutions() {
+        ArraySudokuDLX dlx = ArraySudokuDLX.forSize(4);
+        int[][] empty = new int[4][4];
+
+        // an empty 4x4 grid has 288 solutions
+        try (Stream<int[][]> solutions = dlx.solutions(empty)) {
+            List<String> all = solutions.peek(solution -> assertThat(isSolutionValid(solution)).isTrue())
+                    .map(Arrays::deepToString).collect(Collectors.toList());
+            assertThat(all).hasSize(288).doesNotHaveDuplicates();
+        }
+        assertThat(dlx.forEachSolution(empty, solution -> true)).isEqualTo(288);
+        assertThat(dlx.forEachSolution(empty, new Predicate<int[][]>() {
+            int visited;
+
+            @Override
+            public boolean test(int[][] solution) {
+                return ++visited < 3;
+            }
+        })).isEqualTo(3);
+
+        // stopping early leaves the instance usable
+        try (Stream<int[][]> solutions = dlx.solutions(empty)) {
+            assertThat(solutions.limit(5).count()).isEqualTo(5);
+        }
+        assertThat(dlx.countSolutions(empty, 1000)).isEqualTo(288);
+
+        Iterator<int[][]> stale = dlx.solutions(empty).iterator();
+        assertThat(stale.hasNext()).isTrue();
+        stale.next();
+        dlx.solve(empty);
+        assertThatThrownBy(stale::hasNext).isInstanceOf(ConcurrentModificationException.class);
+
+        int[][] contradicting = new int[4][4];
+        contradicting[0][0] = contradicting[1][1] = 2;
+        assertThat(dlx.solutions(contradicting).count()).isZero();
+    }
+
+    @Test
+    public void testDLXColumnSelections() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "pruning/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "var_selection/"));
+
+        for (SudokuDLX.ColumnSelection selection : SudokuDLX.ColumnSelection.values()) {
+            for (int[][] level : levels) {
+                int[][] solution = SudokuDLX.solve(level, null, selection);
+                assertThat(isSolutionValid(solution)).isTrue();
+                assertThat(respectsGivens(level, solution)).isTrue();
+            }
+            assertThat(SudokuDLX.countSolutions(new int[4][4], 1000, selection)).isEqualTo(288);
+            for (int[][] level : parseLevels(sudokuInstancesPath + "basic/")) {
+                assertThat(SudokuDLX.countSolutions(level, 2, selection)).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    public void testExactCoverPrimaryAndSecondaryColumns() {
+        // the example of Knuth's dancing links paper, its only solution are rows 0, 3 and 4
+        ExactCover knuth = new ExactCover(7, 0);
+        knuth.addRow(2, 4, 5);
+        knuth.addRow(0, 3, 6);
+        knuth.addRow(1, 2, 5);
+        knuth.addRow(0, 3);
+        knuth.addRow(1, 6);
+        knuth.addRow(3, 4, 6);
+        int[] solution = knuth.solve();
+        Arrays.sort(solution);
+        assertThat(solution).containsExactly(0, 3, 4);
+        assertThat(knuth.countSolutions(10)).isEqualTo(1);
+
+        knuth.beginSearch();
+        assertThat(knuth.choose(1)).isTrue();
+        assertThat(knuth.choose(3)).isFalse();
+        knuth.endSearch();
+        knuth.beginSearch();
+        assertThat(knuth.choose(3)).isTrue();
+        assertThat(knuth.continueSearch(Long.MAX_VALUE)).isEqualTo(SearchStatus.FOUND);
+        assertThat(knuth.getSolution()[0]).isEqualTo(3);
+        knuth.endSearch();
+
+        // column 2 is secondary, it may stay uncovered but is never covered twice
+        ExactCover optional = new ExactCover(2, 1);
+        optional.addRow(0, 2);
+        optional.addRow(1, 2);
+        optional.addRow(0);
+        optional.addRow(1);
+        assertThat(optional.countSolutions(10)).isEqualTo(3);
+
+        // a filter that forbids row 2 leaves rows 0 and 3 as the only solution
+        optional.setFilter(new ExactCover.RowFilter() {
+            @Override
+            public boolean enter(int row) {
+                return row != 2;
+            }
+
+            @Override
+            public void leave(int row) {
+            }
+        });
+        assertThat(optional.countSolutions(10)).isEqualTo(1);
+
+        assertThatThrownBy(() -> optional.addRow(0, 3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> optional.addRow(1, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testVariantSudokuSolvers() {
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "basic/");
+        for (int[][] level : levels) {
+            assertThat(VariantSudokuSolver.forSize(9).solve(level)).isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+        }
+        assertThat(VariantSudokuSolver.forSize(4).countSolutions(new int[4][4], 1000)).isEqualTo(288);
+
+        int[][] x = VariantSudokuSolver.diagonal(9).solve(new int[9][9]);
+        assertThat(isSolutionValid(x)).isTrue();
+        Set<Integer> main = new HashSet<>(), anti = new HashSet<>();
+        for (int i = 0; i < 9; i++) {
+            main.add(x[i][i]);
+            anti.add(x[i][8 - i]);
+        }
+        assertThat(main).hasSize(9);
+        assertThat(anti).hasSize(9);
+
+        int[][] hyper = VariantSudokuSolver.hyper(9).solve(new int[9][9]);
+        assertThat(isSolutionValid(hyper)).isTrue();
+        for (int row0 : new int[]{1, 5}) {
+            for (int col0 : new int[]{1, 5}) {
+                Set<Integer> window = new HashSet<>();
+                for (int i = 0; i < 9; i++) window.add(hyper[row0 + i/3][col0 + i%3]);
+                assertThat(window).hasSize(9);
+            }
+        }
+
+        // jigsaw regions need not be subgrids, nor the grid size a square
+        int[][] regions = new int[5][5];
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) regions[row][col] = (row + 2*col) % 5;
+        }
+        int[][] jigsaw = VariantSudokuSolver.jigsaw(regions).solve(new int[5][5]);
+        assertThat(jigsaw).isNotNull();
+        for (int i = 0; i < 5; i++) {
+            Set<Integer> row = new HashSet<>(), col = new HashSet<>(), region = new HashSet<>();
+            for (int j = 0; j < 5; j++) {
+                row.add(jigsaw[i][j]);
+                col.add(jigsaw[j][i]);
+            }
+            for (int cell = 0; cell < 25; cell++) {
+                if (regions[cell / 5][cell % 5] == i) region.add(jigsaw[cell / 5][cell % 5]);
+            }
+            assertThat(row).hasSize(5);
+            assertThat(col).hasSize(5);
+            assertThat(region).hasSize(5);
+        }
+        int[][] unequalRegions = new int[4][4];
+        unequalRegions[0][1] = 1;
+        assertThatThrownBy(() -> VariantSudokuSolver.jigsaw(unequalRegions)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testKillerSudokuSolver() {
+        int[][] level = parseLevel(sudokuInstancesPath + "basic/" + new File(sudokuInstancesPath + "basic/").list()[0]);
+        int[][] expected = ArraySudokuDLX.forSize(9).solve(level);
+
+        // horizontal pairs and the single cells of the last column, summed from a known solution
+        List<int[]> cages = new ArrayList<>();
+        List<Integer> sums = new ArrayList<>();
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col += 2) {
+                int cell = (row*9) + col;
+                cages.add(col == 8 ? new int[]{cell} : new int[]{cell, cell + 1});
+                sums.add(col == 8 ? expected[row][col] : expected[row][col] + expected[row][col + 1]);
+            }
+        }
+        KillerSudokuSolver killer = new KillerSudokuSolver(9, cages, sums.stream().mapToInt(Integer::intValue).toArray());
+        int[][] solution = killer.solve(new int[9][9]);
+        assertThat(isSolutionValid(solution)).isTrue();
+        for (int i = 0; i < cages.size(); i++) {
+            int sum = 0;
+            for (int cell : cages.get(i)) sum += solution[cell / 9][cell % 9];
+            assertThat(sum).isEqualTo(sums.get(i));
+        }
+        assertThat(killer.solve(level)).isDeepEqualTo(expected);
+
+        // the givens of another solution break the sums
+        int[][] wrong = new int[9][9];
+        wrong[0][8] = expected[0][8] % 9 + 1;
+        assertThat(killer.solve(wrong)).isNull();
+    }
+
+    @Test
+    public void testSudokuSessionFeedback() {
+        SudokuSession session = new SudokuSession(4);
+        session.set(0, 0, 1);
+        assertThat(session.getCandidates(0, 1)).containsExactly(2, 3, 4);
+        assertThat(session.getCandidateCount(1, 1)).isEqualTo(3);
+        assertThat(session.getCandidateCount(0, 0)).isZero();
+
+        // a repeated value conflicts until either copy changes
+        session.set(0, 3, 1);
+        assertThat(session.getConflicts()).containsExactly(new int[]{0, 0}, new int[]{0, 3});
+        assertThat(session.isSolvable(Long.MAX_VALUE)).isEqualTo(SudokuSession.Answer.NO);
+        session.set(0, 0, 0);
+        assertThat(session.hasConflicts()).isFalse();
+        assertThat(session.getCandidates(1, 3)).containsExactly(2, 3, 4);
+        assertThat(session.getCandidates(0, 0)).containsExactly(2, 3, 4);
+        assertThat(session.isSolvable(Long.MAX_VALUE)).isEqualTo(SudokuSession.Answer.YES);
+        assertThat(session.isUnique(Long.MAX_VALUE)).isEqualTo(SudokuSession.Answer.NO);
+        assertThat(session.isUnique(0)).isEqualTo(SudokuSession.Answer.UNKNOWN);
+
+        session.clear();
+        assertThat(session.getGrid()).isDeepEqualTo(new int[4][4]);
+        assertThat(session.getCandidateCount(0, 3)).isEqualTo(4);
+        assertThatThrownBy(() -> session.set(0, 0, 5)).isInstanceOf(IllegalArgumentException.class);
+
+        // random edits of real levels agree with solving the entered grid from scratch
+        Random random = new Random(23);
+        for (int[][] level : parseLevels(sudokuInstancesPath + "basic/")) {
+            int n = level.length;
+            SudokuSession edited = new SudokuSession(n);
+            for (int edit = 0; edit < 150; edit++) {
+                int row = random.nextInt(n), col = random.nextInt(n);
+                int val = random.nextInt(4) == 0 ? random.nextInt(n + 1) : Math.max(0, level[row][col]);
+                edited.set(row, col, val);
+                int[][] grid = edited.getGrid();
+
+                int conflicts = 0;
+                for (int r = 0; r < n; r++) {
+                    for (int c = 0; c < n; c++) {
+                        assertThat(edited.isConflicting(r, c)).isEqualTo(isConflicting(grid, r, c));
+                        if (isConflicting(grid, r, c)) conflicts++;
+                        if (grid[r][c] == 0 && conflicts == 0 && !edited.hasConflicts()) {
+                            List<Integer> expected = new ArrayList<>();
+                            for (int v = 1; v <= n; v++) {
+                                grid[r][c] = v;
+                                if (!isConflicting(grid, r, c)) expected.add(v);
+                            }
+                            grid[r][c] = 0;
+                            assertThat(edited.getCandidates(r, c)).containsExactly(expected.stream().mapToInt(Integer::intValue).toArray());
+                        }
+                    }
+                }
+                assertThat(edited.getConflicts()).hasSize(conflicts);
+                if (edit % 10 == 0) {
+                    int solutions = conflicts > 0 ? 0 : ArraySudokuDLX.forSize(n).countSolutions(grid, 2);
+                    assertThat(edited.isSolvable(Long.MAX_VALUE) == SudokuSession.Answer.YES).isEqualTo(solutions > 0);
+                    assertThat(edited.isUnique(Long.MAX_VALUE) == SudokuSession.Answer.YES).isEqualTo(solutions == 1);
+                }
+            }
+        }
+    }
+
+    private static boolean isConflicting(int[][] grid, int row, int col) {
+        int n = grid.length, subgridSize = (int) Math.round(Math.sqrt(n));
+        int val = grid[row][col];
+        if (val == 0) return false;
+        for (int i = 0; i < n; i++) {
+            if (i != col && grid[row][i] == val) return true;
+            if (i != row && grid[i][col] == val) return true;
+            int r = (row / subgridSize)*subgridSize + i / subgridSize, c = (col / subgridSize)*subgridSize + i % subgridSize;
+            if ((r != row || c != col) && grid[r][c] == val) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void testSudokuSessionSolvesAsync() throws Exception {
+        int[][] level = parseLevel(sudokuInstancesPath + "basic/" + new File(sudokuInstancesPath + "basic/").list()[0]);
+        SudokuSession session = new SudokuSession(9);
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) session.set(row, col, Math.max(0, level[row][col]));
+        }
+        SolveResult result = session.solveAsync(Runnable::run).get();
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+        assertThat(result.getSolution()).isDeepEqualTo(ArraySudokuDLX.forSize(9).solve(level));
+
+        // an edit while the solve is queued cancels it
+        List<Runnable> queued = new ArrayList<>();
+        CompletableFuture<SolveResult> solve = session.solveAsync(queued::add);
+        session.set(0, 0, 0);
+        queued.forEach(Runnable::run);
+        assertThat(solve.get().getStatus()).isEqualTo(SolveResult.Status.CANCELLED);
+    }
+
+    @Test
+    public void testVectorBatchSolver() {
+        assertThat(VectorBatchSolver.isVectorized()).isTrue();
+        List<int[][]> levels = parseLevels(sudokuInstancesPath + "basic/");
+        levels.addAll(parseLevels(sudokuInstancesPath + "pruning/").stream()
+                .filter(level -> level.length == 9).collect(Collectors.toList()));
+        int[][] contradicting = new int[9][9];
+        contradicting[0][0] = contradicting[8][0] = 3;
+        levels.add(3, contradicting);
+
+        for (VectorBatchSolver solver : Arrays.asList(new VectorBatchSolver(9), new VectorBatchSolver(9, false))) {
+            List<int[][]> solutions = solver.solveAll(levels);
+            assertThat(solutions).hasSize(levels.size());
+            for (int i = 0; i < levels.size(); i++) {
+                int[][] level = levels.get(i);
+                if (level == contradicting) {
+                    assertThat(solutions.get(i)).isNull();
+                    continue;
+                }
+                assertThat(isSolutionValid(solutions.get(i))).isTrue();
+                for (int row = 0; row < 9; row++) {
+                    for (int col = 0; col < 9; col++) {
+                        if (level[row][col] > 0) assertThat(solutions.get(i)[row][col]).isEqualTo(level[row][col]);
+                    }
+                }
+            }
+            assertThat(solver.getPropagated() + solver.getSearched()).isEqualTo(levels.size());
+        }
+
+        // 16x16 boards with a partial last block
+        List<int[][]> large = parseLevels(sudokuInstancesPath + "pruning/").stream()
+                .filter(level -> level.length == 16).limit(21).collect(Collectors.toList());
+        List<int[][]> solutions = VectorBatchSolver.forSize(16).solveAll(large);
+        for (int i = 0; i < large.size(); i++) {
+            assertThat(solutions.get(i)).isDeepEqualTo(ArraySudokuDLX.forSize(16).solve(large.get(i)));
+        }
+        assertThatThrownBy(() -> new VectorBatchSolver(36)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSolversRejectInvalidGrids() {
+        int[][] notSquare = new int[10][10];
+        int[][] ragged = new int[9][];
+        for (int i = 0; i < 9; i++) ragged[i] = new int[i == 4 ? 8 : 9];
+        int[][] valueTooLarge = new int[4][4];
+        valueTooLarge[1][2] = 5;
+
+        for (int[][] grid : Arrays.asList(notSquare, ragged, valueTooLarge)) {
+            assertThatThrownBy(() -> SudokuDLX.solve(grid)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> BacktrackingSudokuSolver.solve(grid)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Solver.forSize(grid.length).solve(grid)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> new ArraySudokuDLX(121)).isInstanceOf(IllegalArgumentException.class);
+    }
+
 }